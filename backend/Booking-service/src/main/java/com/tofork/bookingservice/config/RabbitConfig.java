@@ -0,0 +1,70 @@
+package com.tofork.bookingservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tofork.bookingservice.event.BookingEventPublisher;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitConfig - Exchange condiviso per gli eventi tra microservizi
+ */
+@Configuration
+public class RabbitConfig {
+
+    @Value("${app.rabbitmq.exchange:tofork.exchange}")
+    private String exchangeName;
+
+    @Bean
+    public TopicExchange toforkExchange() {
+        return new TopicExchange(exchangeName, true, false);
+    }
+
+    // Indice di disponibilità: coda anonima per istanza, ogni replica riceve ogni modifica
+    @Bean
+    public Queue availabilityQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding availabilityBinding(Queue availabilityQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(availabilityQueue).to(toforkExchange).with(BookingEventPublisher.ROUTING_KEY);
+    }
+
+    // Riserve temporanee: non usano il prefisso "booking." per non finire nelle code degli altri servizi
+    @Bean
+    public Queue holdsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding holdsBinding(Queue holdsQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(holdsQueue).to(toforkExchange).with("booking-hold.*");
+    }
+
+    // Tavoli modificati su Restaurant-service: ogni replica svuota la propria cache
+    @Bean
+    public Queue tablesChangesQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding tablesChangesBinding(Queue tablesChangesQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(tablesChangesQueue).to(toforkExchange).with("restaurant-tables.changed");
+    }
+
+    // I messaggi di Restaurant-service hanno classi diverse: si usa sempre il tipo del parametro del listener
+    @Bean
+    public MessageConverter jsonMessageConverter(ObjectMapper objectMapper) {
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter(objectMapper);
+        converter.setAlwaysConvertToInferredType(true);
+        return converter;
+    }
+}
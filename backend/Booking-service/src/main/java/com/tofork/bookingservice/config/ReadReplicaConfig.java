@@ -0,0 +1,85 @@
+package com.tofork.bookingservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Replica in sola lettura, attiva solo se app.datasource.replica.url è valorizzata.
+ * Per provarla in locale basta un secondo Postgres (o un H2) con lag-query vuota.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    // Ritardo di replay in ms, 0 se la replica ha applicato tutto il WAL ricevuto
+    static final String DEFAULT_LAG_QUERY =
+            "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(Environment env, DataSourceProperties properties) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(env.getRequiredProperty("app.datasource.replica.url"))
+                .username(env.getProperty("app.datasource.replica.username", properties.getUsername()))
+                .password(env.getProperty("app.datasource.replica.password", properties.getPassword()))
+                .build();
+    }
+
+    @Bean
+    public ReplicaStalenessGuard replicaStalenessGuard(@Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                                       Environment env) {
+        return new ReplicaStalenessGuard(new JdbcTemplate(replicaDataSource),
+                env.getProperty("app.datasource.replica.lag-query", DEFAULT_LAG_QUERY),
+                env.getProperty("app.datasource.replica.max-lag-ms", Long.class, 1000L),
+                env.getProperty("app.datasource.replica.read-your-writes-ms", Long.class, 5000L));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                 ReplicaStalenessGuard guard) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(guard);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaStalenessGuard guard) {
+        return new ReadYourWritesFilter(guard);
+    }
+
+    // Con open-in-view la sessione vive per tutta la richiesta: la connessione va rilasciata
+    // a fine transazione, altrimenti le transazioni successive riuserebbero quella già presa
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
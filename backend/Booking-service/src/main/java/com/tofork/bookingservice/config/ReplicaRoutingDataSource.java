@@ -0,0 +1,56 @@
+package com.tofork.bookingservice.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Instrada le transazioni @Transactional(readOnly = true) sulla replica, tutto il resto sul primario.
+ * Va avvolto in un LazyConnectionDataSourceProxy: la connessione fisica deve essere scelta
+ * al primo statement, quando il flag readOnly della transazione è già impostato.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    // Risorsa di transazione: il callback di scrittura va registrato una volta sola
+    private static final Object WRITE_TRACKED = new Object();
+
+    private final ReplicaStalenessGuard guard;
+
+    public ReplicaRoutingDataSource(ReplicaStalenessGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return guard.canUseReplica() ? REPLICA : PRIMARY;
+        }
+        trackWrite();
+        return PRIMARY;
+    }
+
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_TRACKED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                guard.recordWrite();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED);
+            }
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package com.tofork.bookingservice.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decide se una lettura può andare sulla replica senza perdere read-your-own-writes.
+ * Una richiesta resta sul primario se:
+ * - nella stessa richiesta è già stata committata una scrittura;
+ * - lo stesso client (token o cookie) ha scritto da meno di read-your-writes-ms;
+ * - il ritardo misurato della replica supera max-lag-ms.
+ * Con read-your-writes-ms maggiore di max-lag-ms più l'intervallo di controllo, una
+ * scrittura più vecchia della finestra è sicuramente già visibile sulla replica.
+ */
+public class ReplicaStalenessGuard {
+
+    public static final String LAST_WRITE_COOKIE = "tofork_last_write";
+
+    private static final ThreadLocal<RequestContext> CONTEXT = new ThreadLocal<>();
+
+    private final JdbcTemplate replicaJdbc;
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final long readYourWritesMs;
+
+    // Ultima scrittura per client (hash dell'header Authorization), vista da questa istanza
+    private final Map<Integer, Long> lastWriteByClient = new ConcurrentHashMap<>();
+
+    private volatile boolean replicaFresh = true;
+
+    public ReplicaStalenessGuard(JdbcTemplate replicaJdbc, String lagQuery, long maxLagMs, long readYourWritesMs) {
+        this.replicaJdbc = replicaJdbc;
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.readYourWritesMs = readYourWritesMs;
+    }
+
+    public boolean canUseReplica() {
+        if (!replicaFresh) {
+            return false;
+        }
+        RequestContext context = CONTEXT.get();
+        return context == null || !context.pinnedToPrimary;
+    }
+
+    public void beginRequest(String authorization, Long cookieLastWrite, HttpServletResponse response) {
+        long now = System.currentTimeMillis();
+        RequestContext context = new RequestContext();
+        context.clientKey = authorization != null ? authorization.hashCode() : null;
+        context.response = response;
+        Long lastWrite = context.clientKey != null ? lastWriteByClient.get(context.clientKey) : null;
+        context.pinnedToPrimary = isRecent(lastWrite, now) || isRecent(cookieLastWrite, now);
+        CONTEXT.set(context);
+    }
+
+    public void endRequest() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * Chiamato dopo il commit di una transazione di scrittura.
+     * Le scritture fuori da una richiesta HTTP (job, listener) non hanno un client da proteggere.
+     */
+    public void recordWrite() {
+        RequestContext context = CONTEXT.get();
+        if (context == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        context.pinnedToPrimary = true;
+        if (context.clientKey != null) {
+            lastWriteByClient.put(context.clientKey, now);
+        }
+        // Il cookie porta l'informazione anche alle altre repliche del servizio
+        if (context.response != null && !context.response.isCommitted()) {
+            Cookie cookie = new Cookie(LAST_WRITE_COOKIE, String.valueOf(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) (readYourWritesMs / 1000) + 1);
+            context.response.addCookie(cookie);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkReplicaLag() {
+        long now = System.currentTimeMillis();
+        lastWriteByClient.values().removeIf(lastWrite -> !isRecent(lastWrite, now));
+
+        if (lagQuery == null || lagQuery.isBlank()) {
+            replicaFresh = true;
+            return;
+        }
+        try {
+            Double lagMs = replicaJdbc.queryForObject(lagQuery, Double.class);
+            replicaFresh = lagMs != null && lagMs <= maxLagMs;
+        } catch (Exception e) {
+            // Replica non raggiungibile: tutte le letture tornano sul primario
+            replicaFresh = false;
+        }
+    }
+
+    private boolean isRecent(Long lastWrite, long now) {
+        return lastWrite != null && now - lastWrite < readYourWritesMs;
+    }
+
+    private static class RequestContext {
+        Integer clientKey;
+        HttpServletResponse response;
+        boolean pinnedToPrimary;
+    }
+}
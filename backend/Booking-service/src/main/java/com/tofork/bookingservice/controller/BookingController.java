@@ -1,16 +1,23 @@
 package com.tofork.bookingservice.controller;
 
 import com.tofork.bookingservice.dto.ApiResponse;
+import com.tofork.bookingservice.dto.AvailabilityResult;
 import com.tofork.bookingservice.dto.CreateBookingRequest;
+import com.tofork.bookingservice.dto.CreateHoldRequest;
+import com.tofork.bookingservice.dto.SeatingPlanResult;
 import com.tofork.bookingservice.dto.UpdateBookingRequest;
 import com.tofork.bookingservice.jwt.JwtService;
 import com.tofork.bookingservice.model.Booking;
+import com.tofork.bookingservice.model.BookingHold;
 import com.tofork.bookingservice.model.BookingStatus;
+import com.tofork.bookingservice.service.AvailabilityService;
 import com.tofork.bookingservice.service.BookingService;
+import com.tofork.bookingservice.service.RestaurantOwnership;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -29,6 +36,12 @@ public class BookingController {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private RestaurantOwnership restaurantOwnership;
+
     // Helper class for Auth Info
     private static class AuthInfo {
         Long userId;
@@ -51,6 +64,24 @@ public class BookingController {
         return info;
     }
 
+    // Pubblico: usato dal widget di prenotazione per mostrare tutti gli orari liberi in una volta
+    @GetMapping("/check-availability")
+    public ResponseEntity<ApiResponse<AvailabilityResult>> checkAvailability(
+            @RequestParam Long restaurantId,
+            @RequestParam String from,
+            @RequestParam(required = false) String to,
+            @RequestParam Integer partySize,
+            @RequestParam(required = false) Integer durationMinutes) {
+        try {
+            LocalDate fromDate = LocalDate.parse(from, DateTimeFormatter.ISO_LOCAL_DATE);
+            LocalDate toDate = to != null ? LocalDate.parse(to, DateTimeFormatter.ISO_LOCAL_DATE) : fromDate;
+            return ResponseEntity.ok(ApiResponse.success("OK",
+                    availabilityService.findAvailableSlots(restaurantId, fromDate, toDate, partySize, durationMinutes)));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<ApiResponse<Booking>> getBookingById(
             @PathVariable Long bookingId,
@@ -127,6 +158,25 @@ public class BookingController {
         }
     }
 
+    @PostMapping("/restaurant/{restaurantId}/seating/optimize")
+    public ResponseEntity<ApiResponse<SeatingPlanResult>> optimizeSeating(
+            @PathVariable Long restaurantId,
+            @RequestParam String date,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            AuthInfo auth = validateAndExtract(authHeader);
+            if (!"RESTAURANT_OWNER".equals(auth.role) && !"ADMIN".equals(auth.role)) return ResponseEntity.ok(ApiResponse.error("Accesso negato"));
+            // Riscrive i tavoli delle prenotazioni: l'owner può farlo solo sui propri ristoranti
+            if (!"ADMIN".equals(auth.role)) {
+                restaurantOwnership.checkOwner(auth.userId, restaurantId, authHeader);
+            }
+            LocalDate day = LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
+            return ResponseEntity.ok(ApiResponse.success("OK", bookingService.optimizeSeating(restaurantId, day)));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PutMapping("/{bookingId}")
     public ResponseEntity<ApiResponse<Booking>> updateBooking(
             @PathVariable Long bookingId,
@@ -187,4 +237,46 @@ public class BookingController {
             return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
         }
     }
+
+    @PostMapping("/holds")
+    public ResponseEntity<ApiResponse<BookingHold>> createHold(
+            @RequestBody CreateHoldRequest request,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            AuthInfo auth = validateAndExtract(authHeader);
+            return ResponseEntity.ok(ApiResponse.success("Tavolo riservato", bookingService.createHold(request, auth.userId)));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<ApiResponse<Object>> releaseHold(
+            @PathVariable String holdId,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            AuthInfo auth = validateAndExtract(authHeader);
+            bookingService.releaseHold(holdId, auth.userId);
+            return ResponseEntity.ok(ApiResponse.success("Riserva rilasciata", null));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<ApiResponse<Booking>> confirmHold(
+            @PathVariable String holdId,
+            @RequestBody CreateBookingRequest request,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            AuthInfo auth = validateAndExtract(authHeader);
+            request.setUserId(auth.userId);
+            request.setUserEmail(jwtService.getEmailFromToken(auth.token));
+            request.setUserName(jwtService.getFullNameFromToken(auth.token));
+
+            return ResponseEntity.ok(ApiResponse.success("Creata", bookingService.confirmHold(holdId, request)));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package com.tofork.bookingservice.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orari di inizio prenotabili, raggruppati per giorno.
+ */
+public class AvailabilityResult {
+
+    private Long restaurantId;
+    private Integer partySize;
+    private Integer durationMinutes;
+    private Map<LocalDate, List<LocalTime>> slots;
+
+    public AvailabilityResult() {}
+
+    public AvailabilityResult(Long restaurantId, Integer partySize, Integer durationMinutes,
+                              Map<LocalDate, List<LocalTime>> slots) {
+        this.restaurantId = restaurantId;
+        this.partySize = partySize;
+        this.durationMinutes = durationMinutes;
+        this.slots = slots;
+    }
+
+    // Getters and Setters
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public Integer getPartySize() { return partySize; }
+    public void setPartySize(Integer partySize) { this.partySize = partySize; }
+
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+
+    public Map<LocalDate, List<LocalTime>> getSlots() { return slots; }
+    public void setSlots(Map<LocalDate, List<LocalTime>> slots) { this.slots = slots; }
+}
@@ -0,0 +1,61 @@
+package com.tofork.bookingservice.dto;
+
+import com.tofork.bookingservice.model.Booking;
+import com.tofork.bookingservice.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stato compatto di una prenotazione, pubblicato ad ogni modifica.
+ * Gli altri servizi lo usano per mantenere una replica locale in sola lettura.
+ */
+public class BookingEventMessage {
+    private Long bookingId;
+    private Long userId;
+    private Long restaurantId;
+    private Long tableId;
+    private LocalDateTime bookingDate;
+    private LocalDateTime endTime;
+    private BookingStatus status;
+    private LocalDateTime updatedAt;
+
+    public BookingEventMessage() {}
+
+    public static BookingEventMessage from(Booking booking) {
+        BookingEventMessage event = new BookingEventMessage();
+        event.bookingId = booking.getId();
+        event.userId = booking.getUserId();
+        event.restaurantId = booking.getRestaurantId();
+        event.tableId = booking.getTableId();
+        event.bookingDate = booking.getBookingDate();
+        event.endTime = booking.getEndTime();
+        event.status = booking.getStatus();
+        event.updatedAt = booking.getUpdatedAt() != null ? booking.getUpdatedAt() : LocalDateTime.now();
+        return event;
+    }
+
+    // Getters and Setters
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public Long getTableId() { return tableId; }
+    public void setTableId(Long tableId) { this.tableId = tableId; }
+
+    public LocalDateTime getBookingDate() { return bookingDate; }
+    public void setBookingDate(LocalDateTime bookingDate) { this.bookingDate = bookingDate; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+    public BookingStatus getStatus() { return status; }
+    public void setStatus(BookingStatus status) { this.status = status; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,45 @@
+package com.tofork.bookingservice.dto;
+
+import java.time.LocalDateTime;
+
+public class CreateHoldRequest {
+
+    private Long restaurantId;
+    private String restaurantName;
+    private Long tableId;
+    private LocalDateTime bookingDate;
+    private LocalDateTime endTime;
+    private Integer peopleCount;
+    private Integer holdMinutes;
+
+    public CreateHoldRequest() {}
+
+    public boolean isValid() {
+        return restaurantId != null &&
+                restaurantName != null && !restaurantName.trim().isEmpty() &&
+                bookingDate != null &&
+                peopleCount != null && peopleCount > 0;
+    }
+
+    // Getters and Setters
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public String getRestaurantName() { return restaurantName; }
+    public void setRestaurantName(String restaurantName) { this.restaurantName = restaurantName; }
+
+    public Long getTableId() { return tableId; }
+    public void setTableId(Long tableId) { this.tableId = tableId; }
+
+    public LocalDateTime getBookingDate() { return bookingDate; }
+    public void setBookingDate(LocalDateTime bookingDate) { this.bookingDate = bookingDate; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+    public Integer getPeopleCount() { return peopleCount; }
+    public void setPeopleCount(Integer peopleCount) { this.peopleCount = peopleCount; }
+
+    public Integer getHoldMinutes() { return holdMinutes; }
+    public void setHoldMinutes(Integer holdMinutes) { this.holdMinutes = holdMinutes; }
+}
@@ -0,0 +1,27 @@
+package com.tofork.bookingservice.dto;
+
+/**
+ * Tavolo di un ristorante, come restituito da Restaurant-service.
+ */
+public class RestaurantTableDTO {
+
+    private Long id;
+    private Integer tableNumber;
+    private Integer capacity;
+    private String status;
+
+    public RestaurantTableDTO() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getTableNumber() { return tableNumber; }
+    public void setTableNumber(Integer tableNumber) { this.tableNumber = tableNumber; }
+
+    public Integer getCapacity() { return capacity; }
+    public void setCapacity(Integer capacity) { this.capacity = capacity; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,46 @@
+package com.tofork.bookingservice.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Esito della riottimizzazione dei tavoli di un giorno.
+ */
+public class SeatingPlanResult {
+
+    private Long restaurantId;
+    private LocalDate date;
+    private int bookings;
+    private int reassigned;
+    private int wastedSeatsBefore;
+    private int wastedSeatsAfter;
+    private List<Long> unplacedBookingIds;
+    private boolean applied;
+
+    public SeatingPlanResult() {}
+
+    // Getters and Setters
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public int getBookings() { return bookings; }
+    public void setBookings(int bookings) { this.bookings = bookings; }
+
+    public int getReassigned() { return reassigned; }
+    public void setReassigned(int reassigned) { this.reassigned = reassigned; }
+
+    public int getWastedSeatsBefore() { return wastedSeatsBefore; }
+    public void setWastedSeatsBefore(int wastedSeatsBefore) { this.wastedSeatsBefore = wastedSeatsBefore; }
+
+    public int getWastedSeatsAfter() { return wastedSeatsAfter; }
+    public void setWastedSeatsAfter(int wastedSeatsAfter) { this.wastedSeatsAfter = wastedSeatsAfter; }
+
+    public List<Long> getUnplacedBookingIds() { return unplacedBookingIds; }
+    public void setUnplacedBookingIds(List<Long> unplacedBookingIds) { this.unplacedBookingIds = unplacedBookingIds; }
+
+    public boolean isApplied() { return applied; }
+    public void setApplied(boolean applied) { this.applied = applied; }
+}
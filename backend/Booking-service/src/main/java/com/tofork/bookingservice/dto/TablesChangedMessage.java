@@ -0,0 +1,11 @@
+package com.tofork.bookingservice.dto;
+
+/**
+ * Evento "restaurant-tables.changed" pubblicato da Restaurant-service.
+ */
+public class TablesChangedMessage {
+    private Long restaurantId;
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+}
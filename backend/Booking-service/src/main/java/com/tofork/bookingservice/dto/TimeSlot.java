@@ -0,0 +1,26 @@
+package com.tofork.bookingservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Intervallo [start, end) libero o occupato su un tavolo.
+ */
+public class TimeSlot {
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    public TimeSlot() {}
+
+    public TimeSlot(LocalDateTime start, LocalDateTime end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getStart() { return start; }
+    public void setStart(LocalDateTime start) { this.start = start; }
+
+    public LocalDateTime getEnd() { return end; }
+    public void setEnd(LocalDateTime end) { this.end = end; }
+}
@@ -0,0 +1,38 @@
+package com.tofork.bookingservice.event;
+
+import com.tofork.bookingservice.dto.BookingEventMessage;
+import com.tofork.bookingservice.service.BookingAvailabilityIndex;
+import com.tofork.bookingservice.service.DailyBookingCache;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tiene allineate le strutture in memoria (indice di disponibilità e viste giornaliere):
+ * subito per le modifiche di questa istanza, tramite RabbitMQ per quelle delle altre repliche.
+ */
+@Component
+public class BookingChangeListener {
+
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final DailyBookingCache dailyBookingCache;
+
+    public BookingChangeListener(BookingAvailabilityIndex availabilityIndex, DailyBookingCache dailyBookingCache) {
+        this.availabilityIndex = availabilityIndex;
+        this.dailyBookingCache = dailyBookingCache;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLocalChange(BookingChangedEvent event) {
+        availabilityIndex.apply(event.getBooking());
+        dailyBookingCache.applyLocal(event.getBooking());
+    }
+
+    // Arriva anche l'evento pubblicato da questa istanza: applicarlo due volte non cambia nulla
+    @RabbitListener(queues = "#{availabilityQueue.name}")
+    public void onBookingChanged(BookingEventMessage message) {
+        availabilityIndex.apply(message);
+        dailyBookingCache.applyRemote(message);
+    }
+}
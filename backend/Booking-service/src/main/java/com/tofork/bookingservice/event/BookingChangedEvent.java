@@ -0,0 +1,17 @@
+package com.tofork.bookingservice.event;
+
+import com.tofork.bookingservice.model.Booking;
+
+/**
+ * Evento applicativo pubblicato quando una prenotazione viene creata o modificata.
+ * Viene consegnato ai listener solo dopo il commit della transazione.
+ */
+public class BookingChangedEvent {
+    private final Booking booking;
+
+    public BookingChangedEvent(Booking booking) {
+        this.booking = booking;
+    }
+
+    public Booking getBooking() { return booking; }
+}
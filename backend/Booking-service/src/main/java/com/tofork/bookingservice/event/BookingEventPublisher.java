@@ -0,0 +1,39 @@
+package com.tofork.bookingservice.event;
+
+import com.tofork.bookingservice.dto.BookingEventMessage;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Inoltra su RabbitMQ le modifiche alle prenotazioni, solo dopo il commit.
+ */
+@Component
+public class BookingEventPublisher {
+
+    public static final String ROUTING_KEY = "booking.changed";
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${app.rabbitmq.exchange:tofork.exchange}")
+    private String exchangeName;
+
+    public BookingEventPublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        // Dopo il commit updatedAt è già stato valorizzato dal flush
+        BookingEventMessage message = BookingEventMessage.from(event.getBooking());
+        try {
+            rabbitTemplate.convertAndSend(exchangeName, ROUTING_KEY, message);
+        } catch (AmqpException e) {
+            // La prenotazione è già salvata: chi consuma ha comunque il fallback sincrono
+            System.err.println("Errore pubblicazione evento prenotazione " + message.getBookingId() + ": " + e.getMessage());
+        }
+    }
+}
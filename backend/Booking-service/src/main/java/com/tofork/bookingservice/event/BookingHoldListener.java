@@ -0,0 +1,30 @@
+package com.tofork.bookingservice.event;
+
+import com.tofork.bookingservice.model.BookingHold;
+import com.tofork.bookingservice.service.BookingHoldRegistry;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allinea le riserve temporanee create o rilasciate dalle altre istanze.
+ */
+@Component
+public class BookingHoldListener {
+
+    private final BookingHoldRegistry holdRegistry;
+
+    public BookingHoldListener(BookingHoldRegistry holdRegistry) {
+        this.holdRegistry = holdRegistry;
+    }
+
+    @RabbitListener(queues = "#{holdsQueue.name}")
+    public void onHoldChanged(BookingHold hold, @Header(AmqpHeaders.RECEIVED_ROUTING_KEY) String routingKey) {
+        if (BookingHoldRegistry.ROUTING_KEY_RELEASED.equals(routingKey)) {
+            holdRegistry.applyReleased(hold);
+        } else {
+            holdRegistry.applyCreated(hold);
+        }
+    }
+}
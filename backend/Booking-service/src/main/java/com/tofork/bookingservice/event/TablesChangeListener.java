@@ -0,0 +1,26 @@
+package com.tofork.bookingservice.event;
+
+import com.tofork.bookingservice.dto.TablesChangedMessage;
+import com.tofork.bookingservice.service.RestaurantTableCache;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalida i tavoli in cache quando Restaurant-service aggiunge o elimina un tavolo.
+ */
+@Component
+public class TablesChangeListener {
+
+    private final RestaurantTableCache tableCache;
+
+    public TablesChangeListener(RestaurantTableCache tableCache) {
+        this.tableCache = tableCache;
+    }
+
+    @RabbitListener(queues = "#{tablesChangesQueue.name}")
+    public void onTablesChanged(TablesChangedMessage message) {
+        if (message.getRestaurantId() != null) {
+            tableCache.invalidate(message.getRestaurantId());
+        }
+    }
+}
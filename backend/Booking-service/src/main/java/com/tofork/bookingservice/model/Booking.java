@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_table_slot", columnList = "restaurant_id, table_id, booking_date")
+})
 public class Booking {
 
     @Id
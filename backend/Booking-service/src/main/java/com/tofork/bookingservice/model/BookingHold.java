@@ -0,0 +1,61 @@
+package com.tofork.bookingservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Riserva temporanea di un tavolo durante il checkout. Vive solo in memoria:
+ * diventa una Booking alla conferma, altrimenti scade da sola.
+ */
+public class BookingHold {
+
+    private String id;
+    private Long userId;
+    private Long restaurantId;
+    private String restaurantName;
+    private Long tableId;
+    private LocalDateTime bookingDate;
+    private LocalDateTime endTime;
+    private Integer peopleCount;
+    private LocalDateTime expiresAt;
+
+    public BookingHold() {}
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return bookingDate.isBefore(end) && endTime.isAfter(start);
+    }
+
+    @JsonIgnore
+    public boolean isExpired() {
+        return !expiresAt.isAfter(LocalDateTime.now());
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public String getRestaurantName() { return restaurantName; }
+    public void setRestaurantName(String restaurantName) { this.restaurantName = restaurantName; }
+
+    public Long getTableId() { return tableId; }
+    public void setTableId(Long tableId) { this.tableId = tableId; }
+
+    public LocalDateTime getBookingDate() { return bookingDate; }
+    public void setBookingDate(LocalDateTime bookingDate) { this.bookingDate = bookingDate; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+    public Integer getPeopleCount() { return peopleCount; }
+    public void setPeopleCount(Integer peopleCount) { this.peopleCount = peopleCount; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -1,5 +1,8 @@
 package com.tofork.bookingservice.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum BookingStatus {
     PENDING("In attesa"),
     CONFIRMED("Confermata"),
@@ -17,4 +20,13 @@ public enum BookingStatus {
     public String getDisplayName() {
         return displayName;
     }
+
+    // Stati in cui la prenotazione occupa il tavolo
+    public boolean holdsTable() {
+        return this == PENDING || this == CONFIRMED;
+    }
+
+    public static Set<BookingStatus> tableHoldingStatuses() {
+        return EnumSet.of(PENDING, CONFIRMED);
+    }
 }
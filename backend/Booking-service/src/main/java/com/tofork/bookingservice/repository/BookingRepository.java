@@ -3,9 +3,12 @@ package com.tofork.bookingservice.repository;
 import com.tofork.bookingservice.model.Booking;
 import com.tofork.bookingservice.model.BookingStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,4 +38,27 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByRestaurantIdAndBookingDateBetweenOrderByBookingDateAsc(
             Long restaurantId, LocalDateTime startDate, LocalDateTime endDate);
 
+    // Prenotazioni di un giorno: intervallo semiaperto [from, to)
+    List<Booking> findByRestaurantIdAndBookingDateGreaterThanEqualAndBookingDateLessThanOrderByBookingDateAsc(
+            Long restaurantId, LocalDateTime from, LocalDateTime to);
+
+    // Prenotazioni ancora rilevanti per l'indice di disponibilità
+    List<Booking> findByStatusInAndEndTimeAfter(Collection<BookingStatus> statuses, LocalDateTime after);
+
+    // Prenotazioni attive sul tavolo che intersecano [start, end)
+    @Query("SELECT b.id FROM Booking b WHERE b.restaurantId = :restaurantId AND b.tableId = :tableId " +
+           "AND b.status IN :statuses AND b.bookingDate < :end AND b.endTime > :start")
+    List<Long> findOverlappingIds(@Param("restaurantId") Long restaurantId,
+                                  @Param("tableId") Long tableId,
+                                  @Param("statuses") Collection<BookingStatus> statuses,
+                                  @Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end);
+
+    // Prenotazioni attive del ristorante che intersecano [start, end)
+    @Query("SELECT b FROM Booking b WHERE b.restaurantId = :restaurantId AND b.status IN :statuses " +
+           "AND b.bookingDate < :end AND b.endTime > :start ORDER BY b.bookingDate ASC")
+    List<Booking> findActiveOverlapping(@Param("restaurantId") Long restaurantId,
+                                        @Param("statuses") Collection<BookingStatus> statuses,
+                                        @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,148 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.AvailabilityResult;
+import com.tofork.bookingservice.dto.RestaurantTableDTO;
+import com.tofork.bookingservice.dto.TimeSlot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ricerca degli orari prenotabili su un intervallo di giorni, in una sola passata.
+ * Gli orari candidati sono una griglia a passo fisso: per ogni tavolo abbastanza grande si
+ * chiedono all'indice i buchi lunghi almeno quanto la prenotazione e si accendono in un
+ * BitSet gli inizi che ci stanno dentro, escluse le fasce trattenute dagli hold. Costo: O(tavoli · log n + buchi + griglia / 64).
+ */
+@Service
+public class AvailabilityService {
+
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final RestaurantTableCache tableCache;
+    private final BookingHoldRegistry holdRegistry;
+
+    private final LocalTime openingTime;
+    // Ora entro cui le prenotazioni devono terminare
+    private final LocalTime closingTime;
+
+    @Value("${app.availability.slot-step-minutes:30}")
+    private int stepMinutes;
+
+    @Value("${app.availability.default-duration-minutes:120}")
+    private int defaultDurationMinutes;
+
+    @Value("${app.availability.max-range-days:31}")
+    private int maxRangeDays;
+
+    public AvailabilityService(BookingAvailabilityIndex availabilityIndex, RestaurantTableCache tableCache,
+                               BookingHoldRegistry holdRegistry,
+                               @Value("${app.availability.opening-time:12:00}") String openingTime,
+                               @Value("${app.availability.closing-time:23:00}") String closingTime) {
+        this.availabilityIndex = availabilityIndex;
+        this.tableCache = tableCache;
+        this.holdRegistry = holdRegistry;
+        this.openingTime = LocalTime.parse(openingTime);
+        this.closingTime = LocalTime.parse(closingTime);
+    }
+
+    public AvailabilityResult findAvailableSlots(Long restaurantId, LocalDate from, LocalDate to, int partySize,
+                                                 Integer durationMinutes) throws Exception {
+        if (restaurantId == null || from == null || to == null) {
+            throw new Exception("Ristorante e intervallo di date sono obbligatori");
+        }
+        if (partySize <= 0) {
+            throw new Exception("Il numero di persone deve essere maggiore di 0");
+        }
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new Exception("Intervallo di date non valido (massimo " + maxRangeDays + " giorni)");
+        }
+        int minutes = durationMinutes != null ? durationMinutes : defaultDurationMinutes;
+        if (minutes <= 0) {
+            throw new Exception("Durata non valida");
+        }
+        Duration duration = Duration.ofMinutes(minutes);
+        // Prima della prima ricostruzione l'indice è vuoto: mostrerebbe tutto libero
+        if (!availabilityIndex.isReady()) {
+            throw new Exception("Disponibilità in aggiornamento, riprova tra qualche secondo");
+        }
+
+        Map<LocalDate, List<LocalTime>> slots = new TreeMap<>();
+        LocalDateTime rangeStart = from.atTime(openingTime);
+        LocalDateTime rangeEnd = to.atTime(closingTime);
+        if (!rangeEnd.isAfter(rangeStart)) {
+            return new AvailabilityResult(restaurantId, partySize, minutes, slots);
+        }
+
+        long step = stepMinutes * 60L;
+        long durationSeconds = duration.getSeconds();
+        BitSet free = new BitSet((int) (seconds(rangeStart, rangeEnd) / step) + 1);
+
+        for (RestaurantTableDTO table : tableCache.getTables(restaurantId)) {
+            if (table.getCapacity() < partySize) {
+                continue;
+            }
+            List<TimeSlot> held = holdRegistry.findHeldSlots(restaurantId, table.getId());
+            for (TimeSlot gap : availabilityIndex.findFreeSlots(restaurantId, table.getId(), rangeStart, rangeEnd, duration)) {
+                for (TimeSlot piece : withoutHeld(gap, held)) {
+                    // Inizi validi nel buco: [piece.start, piece.end - durata]
+                    long first = Math.floorDiv(seconds(rangeStart, piece.getStart()) + step - 1, step);
+                    long last = Math.floorDiv(seconds(rangeStart, piece.getEnd()) - durationSeconds, step);
+                    if (last >= first) {
+                        free.set((int) first, (int) last + 1);
+                    }
+                }
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) {
+            LocalDateTime start = rangeStart.plusSeconds(i * step);
+            LocalTime time = start.toLocalTime();
+            // La griglia attraversa anche le notti: teniamo solo gli orari di servizio
+            if (time.isBefore(openingTime) || !start.isAfter(now)
+                    || start.plus(duration).isAfter(start.toLocalDate().atTime(closingTime))) {
+                continue;
+            }
+            slots.computeIfAbsent(start.toLocalDate(), day -> new ArrayList<>()).add(time);
+        }
+        return new AvailabilityResult(restaurantId, partySize, minutes, slots);
+    }
+
+    // Toglie dal buco le fasce trattenute dagli hold (ordinate per inizio)
+    private static List<TimeSlot> withoutHeld(TimeSlot gap, List<TimeSlot> held) {
+        if (held.isEmpty()) {
+            return List.of(gap);
+        }
+        List<TimeSlot> pieces = new ArrayList<>();
+        LocalDateTime cursor = gap.getStart();
+        for (TimeSlot hold : held) {
+            if (!hold.getStart().isBefore(gap.getEnd())) {
+                break;
+            }
+            if (!hold.getEnd().isAfter(cursor)) {
+                continue;
+            }
+            if (hold.getStart().isAfter(cursor)) {
+                pieces.add(new TimeSlot(cursor, hold.getStart()));
+            }
+            cursor = hold.getEnd();
+        }
+        if (cursor.isBefore(gap.getEnd())) {
+            pieces.add(new TimeSlot(cursor, gap.getEnd()));
+        }
+        return pieces;
+    }
+
+    private static long seconds(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).getSeconds();
+    }
+}
@@ -0,0 +1,204 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.BookingEventMessage;
+import com.tofork.bookingservice.dto.TimeSlot;
+import com.tofork.bookingservice.model.Booking;
+import com.tofork.bookingservice.model.BookingStatus;
+import com.tofork.bookingservice.repository.BookingRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice in memoria delle prenotazioni attive per ristorante e tavolo.
+ * Risponde a sovrapposizioni e fasce libere in O(log n) senza interrogare il database.
+ * Viene ricostruito all'avvio e periodicamente; tra una ricostruzione e l'altra lo aggiornano
+ * le modifiche locali dopo il commit e gli eventi booking.changed delle altre istanze.
+ */
+@Component
+public class BookingAvailabilityIndex {
+
+    private final BookingRepository bookingRepository;
+
+    private volatile Timelines current = new Timelines();
+    // Durante la ricostruzione le modifiche vanno applicate anche al nuovo indice
+    private volatile Timelines building;
+    private volatile boolean ready;
+
+    public BookingAvailabilityIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${app.availability.rebuild-interval-ms:900000}",
+               fixedDelayString = "${app.availability.rebuild-interval-ms:900000}")
+    public synchronized void rebuild() {
+        Timelines fresh = new Timelines();
+        building = fresh;
+        try {
+            for (Booking booking : bookingRepository.findByStatusInAndEndTimeAfter(
+                    BookingStatus.tableHoldingStatuses(), LocalDateTime.now())) {
+                fresh.apply(booking.getId(), booking.getRestaurantId(), booking.getTableId(),
+                        booking.getBookingDate(), booking.getEndTime(), booking.getStatus(), booking.getUpdatedAt());
+            }
+            current = fresh;
+            ready = true;
+        } finally {
+            building = null;
+        }
+    }
+
+    public void apply(Booking booking) {
+        apply(booking.getId(), booking.getRestaurantId(), booking.getTableId(),
+                booking.getBookingDate(), booking.getEndTime(), booking.getStatus(), booking.getUpdatedAt());
+    }
+
+    public void apply(BookingEventMessage message) {
+        apply(message.getBookingId(), message.getRestaurantId(), message.getTableId(),
+                message.getBookingDate(), message.getEndTime(), message.getStatus(), message.getUpdatedAt());
+    }
+
+    private void apply(Long bookingId, Long restaurantId, Long tableId, LocalDateTime start, LocalDateTime end,
+                       BookingStatus status, LocalDateTime version) {
+        if (bookingId == null || restaurantId == null || start == null || end == null || status == null) {
+            return;
+        }
+        current.apply(bookingId, restaurantId, tableId, start, end, status, version);
+        Timelines pending = building;
+        if (pending != null) {
+            pending.apply(bookingId, restaurantId, tableId, start, end, status, version);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Vero se il tavolo è libero in [start, end), ignorando la prenotazione excludeBookingId.
+     * Finché l'indice non è pronto la verifica passa dal database.
+     */
+    public boolean isTableFree(Long restaurantId, Long tableId, LocalDateTime start, LocalDateTime end,
+                               Long excludeBookingId) {
+        if (!ready) {
+            return bookingRepository.findOverlappingIds(restaurantId, tableId,
+                    BookingStatus.tableHoldingStatuses(), start, end).stream()
+                    .allMatch(id -> id.equals(excludeBookingId));
+        }
+        return !current.timeline(restaurantId, tableId).overlaps(toKey(start), toKey(end), excludeBookingId);
+    }
+
+    /**
+     * Fasce libere di almeno minLength sul tavolo dentro [from, to).
+     * Legge solo l'indice, senza fallback sul database: chi ha bisogno di una risposta
+     * esatta deve controllare prima isReady().
+     */
+    public List<TimeSlot> findFreeSlots(Long restaurantId, Long tableId, LocalDateTime from, LocalDateTime to,
+                                        Duration minLength) {
+        List<TimeSlot> slots = new ArrayList<>();
+        for (long[] gap : current.timeline(restaurantId, tableId).gaps(toKey(from), toKey(to), minLength.toSeconds())) {
+            slots.add(new TimeSlot(fromKey(gap[0]), fromKey(gap[1])));
+        }
+        return slots;
+    }
+
+    /**
+     * Tavoli del ristorante con almeno una prenotazione attiva che interseca [start, end).
+     */
+    public Set<Long> findBusyTables(Long restaurantId, LocalDateTime start, LocalDateTime end) {
+        RestaurantTimelines restaurant = current.restaurants.get(restaurantId);
+        if (restaurant == null) {
+            return Collections.emptySet();
+        }
+        Set<Long> busy = new TreeSet<>();
+        long from = toKey(start);
+        long to = toKey(end);
+        restaurant.tables.forEach((tableId, timeline) -> {
+            if (tableId != RestaurantTimelines.NO_TABLE && timeline.overlaps(from, to, null)) {
+                busy.add(tableId);
+            }
+        });
+        return busy;
+    }
+
+    private static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromKey(long key) {
+        return LocalDateTime.ofEpochSecond(key, 0, ZoneOffset.UTC);
+    }
+
+    private static class Timelines {
+
+        final Map<Long, RestaurantTimelines> restaurants = new ConcurrentHashMap<>();
+
+        void apply(Long bookingId, Long restaurantId, Long tableId, LocalDateTime start, LocalDateTime end,
+                   BookingStatus status, LocalDateTime version) {
+            restaurants.computeIfAbsent(restaurantId, id -> new RestaurantTimelines())
+                    .apply(bookingId, tableId, toKey(start), toKey(end), status.holdsTable(), version);
+        }
+
+        TableTimeline timeline(Long restaurantId, Long tableId) {
+            RestaurantTimelines restaurant = restaurants.get(restaurantId);
+            return restaurant != null ? restaurant.timeline(tableId) : TableTimeline.EMPTY;
+        }
+    }
+
+    /**
+     * Timeline dei tavoli di un ristorante. Le scritture sono serializzate per ristorante,
+     * le letture leggono la copia corrente senza lock.
+     */
+    private static class RestaurantTimelines {
+
+        // Prenotazioni senza tavolo assegnato
+        static final long NO_TABLE = -1L;
+
+        final Map<Long, TableTimeline> tables = new ConcurrentHashMap<>();
+        // Ultima posizione nota di ogni prenotazione, anche se non più attiva, per scartare eventi vecchi
+        private final Map<Long, Placement> placements = new HashMap<>();
+
+        TableTimeline timeline(Long tableId) {
+            return tables.getOrDefault(tableId != null ? tableId : NO_TABLE, TableTimeline.EMPTY);
+        }
+
+        synchronized void apply(Long bookingId, Long tableId, long start, long end, boolean active,
+                                LocalDateTime version) {
+            Placement previous = placements.get(bookingId);
+            if (previous != null && previous.version != null && version != null && version.isBefore(previous.version)) {
+                return;
+            }
+            if (previous != null && previous.active) {
+                tables.computeIfPresent(previous.tableKey, (key, timeline) -> {
+                    TableTimeline updated = timeline.without(bookingId, previous.start);
+                    return updated.isEmpty() ? null : updated;
+                });
+            }
+            long tableKey = tableId != null ? tableId : NO_TABLE;
+            if (active) {
+                tables.merge(tableKey, TableTimeline.EMPTY.with(bookingId, start, end),
+                        (timeline, ignored) -> timeline.with(bookingId, start, end));
+            }
+            placements.put(bookingId, new Placement(tableKey, start, active, version));
+        }
+    }
+
+    private record Placement(long tableKey, long start, boolean active, LocalDateTime version) {}
+}
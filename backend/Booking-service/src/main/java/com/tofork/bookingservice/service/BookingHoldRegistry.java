@@ -0,0 +1,218 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.TimeSlot;
+import com.tofork.bookingservice.model.BookingHold;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Riserve temporanee attive, solo in memoria.
+ * La scadenza è gestita da una timing wheel locale: ogni istanza scade gli hold da sola
+ * in base a expiresAt, senza database né messaggi. Creazioni e rilasci vengono propagati
+ * alle altre istanze su RabbitMQ, così gli hold contano ovunque nella disponibilità.
+ * Due istanze possono concedere hold in conflitto nei pochi millisecondi prima della
+ * propagazione: la conferma passa comunque dal controllo sul database con lock del tavolo.
+ * Ogni utente può tenere al massimo app.holds.max-per-user hold attivi, così nessuno può
+ * bloccare la sala di un ristorante con riserve mai confermate.
+ */
+@Component
+public class BookingHoldRegistry {
+
+    public static final String ROUTING_KEY_CREATED = "booking-hold.created";
+    public static final String ROUTING_KEY_RELEASED = "booking-hold.released";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final TimingWheel<BookingHold> wheel;
+    private final int maxHoldsPerUser;
+
+    @Value("${app.rabbitmq.exchange:tofork.exchange}")
+    private String exchangeName;
+
+    private final Map<String, BookingHold> holds = new ConcurrentHashMap<>();
+    private final Map<TableKey, Set<BookingHold>> byTable = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> byUser = new ConcurrentHashMap<>();
+
+    public BookingHoldRegistry(RabbitTemplate rabbitTemplate,
+                               @Value("${app.holds.tick-ms:1000}") long tickMillis,
+                               @Value("${app.holds.wheel-size:1024}") int wheelSize,
+                               @Value("${app.holds.max-per-user:3}") int maxHoldsPerUser) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        this.maxHoldsPerUser = maxHoldsPerUser;
+    }
+
+    public boolean hasReachedUserLimit(Long userId) {
+        Set<String> userHolds = userId != null ? byUser.get(userId) : null;
+        return userHolds != null && userHolds.size() >= maxHoldsPerUser;
+    }
+
+    /**
+     * Registra l'hold se nessun altro hold occupa il tavolo nella stessa fascia
+     * e l'utente non ha già raggiunto il numero massimo di hold attivi.
+     */
+    public boolean tryHold(BookingHold hold) {
+        if (!reserveUserSlot(hold)) {
+            return false;
+        }
+        boolean[] added = {false};
+        byTable.compute(new TableKey(hold.getRestaurantId(), hold.getTableId()), (key, tableHolds) -> {
+            Set<BookingHold> set = tableHolds != null ? tableHolds : ConcurrentHashMap.newKeySet();
+            for (BookingHold other : set) {
+                if (!other.isExpired() && other.overlaps(hold.getBookingDate(), hold.getEndTime())) {
+                    return set;
+                }
+            }
+            set.add(hold);
+            added[0] = true;
+            return set;
+        });
+        if (!added[0]) {
+            releaseUserSlot(hold);
+            return false;
+        }
+        holds.put(hold.getId(), hold);
+        wheel.schedule(hold, toMillis(hold));
+        publish(ROUTING_KEY_CREATED, hold);
+        return true;
+    }
+
+    public void release(String holdId) {
+        BookingHold hold = holds.get(holdId);
+        if (hold != null && remove(hold)) {
+            publish(ROUTING_KEY_RELEASED, hold);
+        }
+    }
+
+    /**
+     * Hold ancora valido, o null se scaduto o inesistente.
+     */
+    public BookingHold getActiveHold(String holdId) {
+        BookingHold hold = holds.get(holdId);
+        return hold != null && !hold.isExpired() ? hold : null;
+    }
+
+    public boolean isHeldByOther(Long restaurantId, Long tableId, LocalDateTime start,
+                                 LocalDateTime end, String ownHoldId) {
+        Set<BookingHold> tableHolds = byTable.get(new TableKey(restaurantId, tableId));
+        if (tableHolds == null) {
+            return false;
+        }
+        for (BookingHold hold : tableHolds) {
+            if (!hold.getId().equals(ownHoldId) && !hold.isExpired() && hold.overlaps(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fasce trattenute sul tavolo, ordinate per inizio.
+     */
+    public List<TimeSlot> findHeldSlots(Long restaurantId, Long tableId) {
+        Set<BookingHold> tableHolds = byTable.get(new TableKey(restaurantId, tableId));
+        if (tableHolds == null) {
+            return List.of();
+        }
+        List<TimeSlot> slots = new ArrayList<>();
+        for (BookingHold hold : tableHolds) {
+            if (!hold.isExpired()) {
+                slots.add(new TimeSlot(hold.getBookingDate(), hold.getEndTime()));
+            }
+        }
+        slots.sort(Comparator.comparing(TimeSlot::getStart));
+        return slots;
+    }
+
+    // Eventi dalle altre istanze (e l'eco dei propri, ignorato perché già presente)
+    public void applyCreated(BookingHold hold) {
+        if (hold.getId() == null || hold.isExpired() || holds.putIfAbsent(hold.getId(), hold) != null) {
+            return;
+        }
+        byTable.computeIfAbsent(new TableKey(hold.getRestaurantId(), hold.getTableId()),
+                key -> ConcurrentHashMap.newKeySet()).add(hold);
+        if (hold.getUserId() != null) {
+            byUser.computeIfAbsent(hold.getUserId(), key -> ConcurrentHashMap.newKeySet()).add(hold.getId());
+        }
+        wheel.schedule(hold, toMillis(hold));
+    }
+
+    public void applyReleased(BookingHold hold) {
+        BookingHold local = hold.getId() != null ? holds.get(hold.getId()) : null;
+        if (local != null) {
+            remove(local);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.holds.tick-ms:1000}")
+    public void expireHolds() {
+        for (BookingHold hold : wheel.advance(System.currentTimeMillis())) {
+            remove(hold);
+        }
+    }
+
+    private boolean remove(BookingHold hold) {
+        if (!holds.remove(hold.getId(), hold)) {
+            return false;
+        }
+        byTable.computeIfPresent(new TableKey(hold.getRestaurantId(), hold.getTableId()), (key, tableHolds) -> {
+            tableHolds.remove(hold);
+            return tableHolds.isEmpty() ? null : tableHolds;
+        });
+        releaseUserSlot(hold);
+        return true;
+    }
+
+    // Conteggio per utente aggiornato in modo atomico: due richieste parallele non superano il limite
+    private boolean reserveUserSlot(BookingHold hold) {
+        if (hold.getUserId() == null) {
+            return true;
+        }
+        boolean[] reserved = {false};
+        byUser.compute(hold.getUserId(), (key, userHolds) -> {
+            Set<String> set = userHolds != null ? userHolds : ConcurrentHashMap.newKeySet();
+            if (set.size() < maxHoldsPerUser) {
+                set.add(hold.getId());
+                reserved[0] = true;
+            }
+            return set.isEmpty() ? null : set;
+        });
+        return reserved[0];
+    }
+
+    private void releaseUserSlot(BookingHold hold) {
+        if (hold.getUserId() == null) {
+            return;
+        }
+        byUser.computeIfPresent(hold.getUserId(), (key, userHolds) -> {
+            userHolds.remove(hold.getId());
+            return userHolds.isEmpty() ? null : userHolds;
+        });
+    }
+
+    private void publish(String routingKey, BookingHold hold) {
+        try {
+            rabbitTemplate.convertAndSend(exchangeName, routingKey, hold);
+        } catch (AmqpException e) {
+            // Le altre istanze non vedranno l'hold: la conferma resta protetta dal lock sul tavolo
+            System.err.println("Errore pubblicazione hold " + hold.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private static long toMillis(BookingHold hold) {
+        return hold.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record TableKey(Long restaurantId, Long tableId) {}
+}
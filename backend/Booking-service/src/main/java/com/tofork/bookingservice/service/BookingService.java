@@ -1,10 +1,14 @@
 package com.tofork.bookingservice.service;
 
 import com.tofork.bookingservice.dto.CreateBookingRequest;
+import com.tofork.bookingservice.dto.CreateHoldRequest;
+import com.tofork.bookingservice.dto.SeatingPlanResult;
 import com.tofork.bookingservice.dto.UpdateBookingRequest;
 import com.tofork.bookingservice.model.Booking;
+import com.tofork.bookingservice.model.BookingHold;
 import com.tofork.bookingservice.model.BookingStatus;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -15,6 +19,21 @@ public interface BookingService {
      */
     Booking createBooking(CreateBookingRequest request) throws Exception;
 
+    /**
+     * Trattiene un tavolo per qualche minuto durante il checkout, senza scrivere sul database
+     */
+    BookingHold createHold(CreateHoldRequest request, Long userId) throws Exception;
+
+    /**
+     * Rilascia una riserva temporanea prima della scadenza
+     */
+    void releaseHold(String holdId, Long userId) throws Exception;
+
+    /**
+     * Trasforma una riserva temporanea in prenotazione
+     */
+    Booking confirmHold(String holdId, CreateBookingRequest details) throws Exception;
+
     /**
      * Trova prenotazione per ID
      */
@@ -70,4 +89,8 @@ public interface BookingService {
      */
     boolean canRestaurantAccessBooking(Long bookingId, Long restaurantId) throws Exception;
 
+    /**
+     * Ricalcola in blocco l'assegnazione dei tavoli di un giorno
+     */
+    SeatingPlanResult optimizeSeating(Long restaurantId, LocalDate date) throws Exception;
 }
@@ -1,14 +1,26 @@
 package com.tofork.bookingservice.service;
 
 import com.tofork.bookingservice.dto.CreateBookingRequest;
+import com.tofork.bookingservice.dto.CreateHoldRequest;
+import com.tofork.bookingservice.dto.RestaurantTableDTO;
+import com.tofork.bookingservice.dto.SeatingPlanResult;
+import com.tofork.bookingservice.dto.TimeSlot;
 import com.tofork.bookingservice.dto.UpdateBookingRequest;
+import com.tofork.bookingservice.event.BookingChangedEvent;
 import com.tofork.bookingservice.model.Booking;
+import com.tofork.bookingservice.model.BookingHold;
 import com.tofork.bookingservice.model.BookingStatus;
 import com.tofork.bookingservice.repository.BookingRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -18,6 +30,38 @@ public class BookingServiceImpl implements BookingService {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private TableSlotLocks tableSlotLocks;
+
+    @Autowired
+    private BookingHoldRegistry holdRegistry;
+
+    @Autowired
+    private TableAssigner tableAssigner;
+
+    @Autowired
+    private RestaurantTableCache tableCache;
+
+    @Autowired
+    private DailyBookingCache dailyBookingCache;
+
+    // Le prenotazioni serali possono finire dopo mezzanotte: il piano blocca anche queste ore
+    private static final Duration NIGHT_SPILL = Duration.ofHours(12);
+
+    @Value("${app.holds.default-minutes:5}")
+    private int defaultHoldMinutes;
+
+    @Value("${app.holds.max-minutes:15}")
+    private int maxHoldMinutes;
+
+    @Value("${app.booking-views.max-range-days:31}")
+    private int maxCachedRangeDays;
 
 
 
@@ -50,7 +94,10 @@ public class BookingServiceImpl implements BookingService {
             if (request.getBookingDate().isBefore(LocalDateTime.now())) {
                 throw new Exception("La nuova data deve essere nel futuro");
             }
+            // Sposta anche la fine mantenendo la durata
+            Duration duration = Duration.between(booking.getBookingDate(), booking.getEndTime());
             booking.setBookingDate(request.getBookingDate());
+            booking.setEndTime(request.getBookingDate().plus(duration));
         }
 
         if (request.getPeopleCount() != null) {
@@ -74,7 +121,20 @@ public class BookingServiceImpl implements BookingService {
             booking.setStatus(request.getStatus());
         }
 
-        return bookingRepository.save(booking);
+        // Se il gruppo non entra più nel tavolo se ne cerca un altro
+        if (booking.getTableId() != null && request.getPeopleCount() != null
+                && capacityOf(booking.getRestaurantId(), booking.getTableId()) < booking.getPeopleCount()) {
+            booking.setTableId(null);
+        }
+        if (booking.getTableId() == null && booking.getStatus() == BookingStatus.CONFIRMED) {
+            assignTable(booking, null);
+        } else {
+            checkTableAvailability(booking, null);
+        }
+
+        Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(saved));
+        return saved;
     }
 
     @Override
@@ -93,39 +153,47 @@ public class BookingServiceImpl implements BookingService {
         }
 
         booking.setStatus(BookingStatus.CANCELLED);
-        bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(saved));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> getUserBookings(Long userId) {
         return bookingRepository.findByUserIdOrderByBookingDateDesc(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> getUserBookingsByStatus(Long userId, BookingStatus status) {
         return bookingRepository.findByUserIdAndStatusOrderByBookingDateDesc(userId, status);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> getRestaurantBookings(Long restaurantId) {
         return bookingRepository.findByRestaurantIdOrderByBookingDateDesc(restaurantId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> getRestaurantBookingsByStatus(Long restaurantId, BookingStatus status) {
         return bookingRepository.findByRestaurantIdAndStatusOrderByBookingDateDesc(restaurantId, status);
     }
 
+    // Le viste giornaliere non richiedono una transazione: in caso di miss la apre il repository
     @Override
     public List<Booking> getRestaurantBookingsByDateRange(Long restaurantId, LocalDateTime startDate, LocalDateTime endDate) {
-        return bookingRepository.findByRestaurantIdAndBookingDateBetweenOrderByBookingDateAsc(restaurantId, startDate, endDate);
+        if (startDate.isAfter(endDate)
+                || startDate.toLocalDate().plusDays(maxCachedRangeDays).isBefore(endDate.toLocalDate())) {
+            return bookingRepository.findByRestaurantIdAndBookingDateBetweenOrderByBookingDateAsc(restaurantId, startDate, endDate);
+        }
+        return dailyBookingCache.getRange(restaurantId, startDate, endDate);
     }
 
     @Override
     public List<Booking> getTodayRestaurantBookings(Long restaurantId) {
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime endOfDay = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
-        return bookingRepository.findByRestaurantIdAndBookingDateBetweenOrderByBookingDateAsc(restaurantId, startOfDay, endOfDay);
+        return dailyBookingCache.getDay(restaurantId, dailyBookingCache.today());
     }
 
     @Override
@@ -147,6 +215,111 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional
     public Booking createBooking(CreateBookingRequest request) throws Exception {
+        return createBooking(request, null);
+    }
+
+    @Override
+    public BookingHold createHold(CreateHoldRequest request, Long userId) throws Exception {
+        if (!request.isValid()) {
+            throw new Exception("Dati riserva non validi");
+        }
+        if (!request.getBookingDate().isAfter(LocalDateTime.now())) {
+            throw new Exception("La prenotazione deve essere nel futuro");
+        }
+        LocalDateTime endTime = request.getEndTime() != null ? request.getEndTime() : request.getBookingDate().plusHours(2);
+        if (!endTime.isAfter(request.getBookingDate())) {
+            throw new Exception("L'orario di fine deve essere successivo all'inizio");
+        }
+        int minutes = request.getHoldMinutes() != null
+                ? Math.max(1, Math.min(request.getHoldMinutes(), maxHoldMinutes))
+                : defaultHoldMinutes;
+        if (holdRegistry.hasReachedUserLimit(userId)) {
+            throw new Exception("Hai già troppe riserve attive: conferma o rilascia quelle esistenti");
+        }
+
+        BookingHold hold = new BookingHold();
+        hold.setId(UUID.randomUUID().toString());
+        hold.setUserId(userId);
+        hold.setRestaurantId(request.getRestaurantId());
+        hold.setRestaurantName(request.getRestaurantName());
+        hold.setBookingDate(request.getBookingDate());
+        hold.setEndTime(endTime);
+        hold.setPeopleCount(request.getPeopleCount());
+        hold.setExpiresAt(LocalDateTime.now().plusMinutes(minutes));
+
+        if (request.getTableId() != null) {
+            if (!availabilityIndex.isTableFree(request.getRestaurantId(), request.getTableId(),
+                    request.getBookingDate(), endTime, null)) {
+                throw new Exception("Il tavolo è già prenotato in questa fascia oraria");
+            }
+            hold.setTableId(request.getTableId());
+            if (!holdRegistry.tryHold(hold)) {
+                throw new Exception("Il tavolo è temporaneamente riservato da un altro cliente");
+            }
+            return hold;
+        }
+
+        // Nessun tavolo scelto: si trattiene il migliore tra quelli liberi
+        List<Long> candidates = tableAssigner.rankTables(request.getRestaurantId(), request.getPeopleCount(),
+                request.getBookingDate(), endTime, null);
+        if (candidates == null) {
+            throw new Exception("Il ristorante non ha tavoli configurati");
+        }
+        for (Long tableId : candidates) {
+            hold.setTableId(tableId);
+            if (holdRegistry.tryHold(hold)) {
+                return hold;
+            }
+        }
+        throw new Exception("Nessun tavolo disponibile per " + request.getPeopleCount() + " persone in questa fascia oraria");
+    }
+
+    @Override
+    public void releaseHold(String holdId, Long userId) throws Exception {
+        BookingHold hold = holdRegistry.getActiveHold(holdId);
+        if (hold == null) {
+            return;
+        }
+        if (!hold.getUserId().equals(userId)) {
+            throw new Exception("Non autorizzato a rilasciare questa riserva");
+        }
+        holdRegistry.release(holdId);
+    }
+
+    @Override
+    @Transactional
+    public Booking confirmHold(String holdId, CreateBookingRequest details) throws Exception {
+        BookingHold hold = holdRegistry.getActiveHold(holdId);
+        if (hold == null) {
+            throw new Exception("Riserva scaduta o inesistente");
+        }
+        if (!hold.getUserId().equals(details.getUserId())) {
+            throw new Exception("Non autorizzato a confermare questa riserva");
+        }
+
+        // Tavolo e orario sono quelli trattenuti, non quelli eventualmente inviati dal client
+        details.setRestaurantId(hold.getRestaurantId());
+        details.setRestaurantName(hold.getRestaurantName());
+        details.setTableId(hold.getTableId());
+        details.setBookingDate(hold.getBookingDate());
+        details.setEndTime(hold.getEndTime());
+        if (details.getPeopleCount() == null) {
+            details.setPeopleCount(hold.getPeopleCount());
+        }
+
+        Booking saved = createBooking(details, holdId);
+
+        // L'hold resta attivo fino al commit, poi la prenotazione lo sostituisce
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                holdRegistry.release(holdId);
+            }
+        });
+        return saved;
+    }
+
+    private Booking createBooking(CreateBookingRequest request, String ownHoldId) throws Exception {
         // Validazione input
         if (!request.isValid()) {
             throw new Exception("Dati prenotazione non validi");
@@ -158,6 +331,9 @@ public class BookingServiceImpl implements BookingService {
 
         LocalDateTime startTime = request.getBookingDate();
         LocalDateTime endTime = request.getEndTime() != null ? request.getEndTime() : startTime.plusHours(2);
+        if (!endTime.isAfter(startTime)) {
+            throw new Exception("L'orario di fine deve essere successivo all'inizio");
+        }
 
         // Crea prenotazione
         Booking booking = new Booking();
@@ -170,10 +346,170 @@ public class BookingServiceImpl implements BookingService {
         booking.setEndTime(endTime);
         booking.setPeopleCount(request.getPeopleCount());
         booking.setPhoneNumber(request.getPhoneNumber());
+        booking.setTableId(request.getTableId());
 
         booking.setStatus(BookingStatus.PENDING); // Default to PENDING
 
-        return bookingRepository.save(booking);
+        if (booking.getTableId() == null) {
+            assignTable(booking, ownHoldId);
+        } else {
+            checkTableAvailability(booking, ownHoldId);
+        }
+
+        Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(saved));
+        return saved;
+    }
+
+    /**
+     * Un tavolo può avere una sola prenotazione attiva per fascia oraria.
+     * L'indice in memoria scarta subito i conflitti evidenti, ma viene aggiornato solo dopo il
+     * commit: la verifica che conta si fa sul database, con il lock del tavolo tenuto fino al commit.
+     */
+    private void checkTableAvailability(Booking booking, String ownHoldId) throws Exception {
+        if (booking.getTableId() == null || !booking.getStatus().holdsTable()) {
+            return;
+        }
+        if (!availabilityIndex.isTableFree(booking.getRestaurantId(), booking.getTableId(),
+                booking.getBookingDate(), booking.getEndTime(), booking.getId())) {
+            throw new Exception("Il tavolo è già prenotato in questa fascia oraria");
+        }
+        if (holdRegistry.isHeldByOther(booking.getRestaurantId(), booking.getTableId(),
+                booking.getBookingDate(), booking.getEndTime(), ownHoldId)) {
+            throw new Exception("Il tavolo è temporaneamente riservato da un altro cliente");
+        }
+
+        tableSlotLocks.lock(booking.getRestaurantId(), booking.getTableId(), booking.getBookingDate(), booking.getEndTime());
+        List<Long> overlapping = bookingRepository.findOverlappingIds(booking.getRestaurantId(), booking.getTableId(),
+                BookingStatus.tableHoldingStatuses(), booking.getBookingDate(), booking.getEndTime());
+        if (overlapping.stream().anyMatch(id -> !id.equals(booking.getId()))) {
+            throw new Exception("Il tavolo è già prenotato in questa fascia oraria");
+        }
+    }
+
+    /**
+     * Assegna il tavolo migliore tra quelli liberi. Si attende il lock della fascia su tutti i candidati
+     * (in un ordine unico, quindi senza deadlock) e poi si verifica sul database: una prenotazione in corso
+     * su un altro tavolo o in un'altra fascia non fa mai scartare un tavolo libero.
+     * I ristoranti senza tavoli configurati restano senza assegnazione.
+     */
+    private void assignTable(Booking booking, String ownHoldId) throws Exception {
+        List<Long> candidates = tableAssigner.rankTables(booking.getRestaurantId(), booking.getPeopleCount(),
+                booking.getBookingDate(), booking.getEndTime(), ownHoldId);
+        if (candidates == null) {
+            return;
+        }
+        tableSlotLocks.lock(booking.getRestaurantId(), candidates, booking.getBookingDate(), booking.getEndTime());
+        for (Long tableId : candidates) {
+            List<Long> overlapping = bookingRepository.findOverlappingIds(booking.getRestaurantId(), tableId,
+                    BookingStatus.tableHoldingStatuses(), booking.getBookingDate(), booking.getEndTime());
+            if (overlapping.stream().allMatch(id -> id.equals(booking.getId()))) {
+                booking.setTableId(tableId);
+                return;
+            }
+        }
+        throw new Exception("Nessun tavolo disponibile per " + booking.getPeopleCount() + " persone in questa fascia oraria");
     }
 
+    private int capacityOf(Long restaurantId, Long tableId) throws Exception {
+        for (RestaurantTableDTO table : tableCache.getTables(restaurantId)) {
+            if (table.getId().equals(tableId)) {
+                return table.getCapacity();
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    @Transactional
+    public SeatingPlanResult optimizeSeating(Long restaurantId, LocalDate date) throws Exception {
+        List<RestaurantTableDTO> tables = tableCache.getTables(restaurantId);
+        if (tables.isEmpty()) {
+            throw new Exception("Il ristorante non ha tavoli configurati");
+        }
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        // Lock su tutte le fasce del giorno (e della notte dopo): durante il piano nessuno può prenotarle
+        LocalDateTime lockedUntil = dayEnd.plus(NIGHT_SPILL);
+        tableSlotLocks.lock(restaurantId, tables.stream().map(RestaurantTableDTO::getId).toList(), dayStart, lockedUntil);
+
+        SeatingPlanner planner = new SeatingPlanner(tables, dayStart, dayEnd);
+        Map<Long, Integer> capacities = new HashMap<>();
+        for (RestaurantTableDTO table : tables) {
+            capacities.put(table.getId(), table.getCapacity());
+            for (TimeSlot held : holdRegistry.findHeldSlots(restaurantId, table.getId())) {
+                planner.block(table.getId(), held.getStart(), held.getEnd());
+            }
+        }
+
+        // Si spostano solo le prenotazioni del giorno non ancora iniziate; le altre restano dove sono
+        List<Booking> movable = new ArrayList<>();
+        for (Booking booking : bookingRepository.findActiveOverlapping(restaurantId,
+                BookingStatus.tableHoldingStatuses(), dayStart, dayEnd)) {
+            if (!booking.getBookingDate().isBefore(dayStart) && !booking.isInPast()
+                    && !booking.getEndTime().isAfter(lockedUntil)) {
+                movable.add(booking);
+            } else if (booking.getTableId() != null) {
+                planner.block(booking.getTableId(), booking.getBookingDate(), booking.getEndTime());
+            }
+        }
+
+        // Best-fit decreasing: prima i gruppi più numerosi e le fasce più lunghe
+        movable.sort(Comparator.comparing(Booking::getPeopleCount).reversed()
+                .thenComparing(booking -> Duration.between(booking.getBookingDate(), booking.getEndTime()), Comparator.reverseOrder())
+                .thenComparing(Booking::getBookingDate)
+                .thenComparing(Booking::getId));
+        Map<Long, Long> plan = new HashMap<>();
+        List<Long> unplaced = new ArrayList<>();
+        for (Booking booking : movable) {
+            Long tableId = planner.place(booking.getPeopleCount(), booking.getBookingDate(), booking.getEndTime());
+            if (tableId != null) {
+                plan.put(booking.getId(), tableId);
+            } else {
+                unplaced.add(booking.getId());
+            }
+        }
+
+        int seatedBefore = 0;
+        int wastedBefore = 0;
+        int wastedAfter = 0;
+        boolean keepsEveryone = true;
+        for (Booking booking : movable) {
+            if (booking.getTableId() != null) {
+                seatedBefore++;
+                wastedBefore += capacities.getOrDefault(booking.getTableId(), booking.getPeopleCount()) - booking.getPeopleCount();
+                keepsEveryone &= plan.containsKey(booking.getId());
+            }
+            Long planned = plan.get(booking.getId());
+            if (planned != null) {
+                wastedAfter += capacities.get(planned) - booking.getPeopleCount();
+            }
+        }
+
+        // Il nuovo piano si applica solo se non lascia a piedi nessuno e migliora qualcosa
+        boolean applied = keepsEveryone && (plan.size() > seatedBefore || wastedAfter < wastedBefore);
+        int reassigned = 0;
+        if (applied) {
+            for (Booking booking : movable) {
+                Long planned = plan.get(booking.getId());
+                if (planned != null && !planned.equals(booking.getTableId())) {
+                    booking.setTableId(planned);
+                    Booking saved = bookingRepository.save(booking);
+                    eventPublisher.publishEvent(new BookingChangedEvent(saved));
+                    reassigned++;
+                }
+            }
+        }
+
+        SeatingPlanResult result = new SeatingPlanResult();
+        result.setRestaurantId(restaurantId);
+        result.setDate(date);
+        result.setBookings(movable.size());
+        result.setReassigned(reassigned);
+        result.setWastedSeatsBefore(wastedBefore);
+        result.setWastedSeatsAfter(applied ? wastedAfter : wastedBefore);
+        result.setUnplacedBookingIds(unplaced);
+        result.setApplied(applied);
+        return result;
+    }
 }
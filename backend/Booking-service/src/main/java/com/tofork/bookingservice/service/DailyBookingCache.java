@@ -0,0 +1,199 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.BookingEventMessage;
+import com.tofork.bookingservice.model.Booking;
+import com.tofork.bookingservice.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prenotazioni di un ristorante per giorno (in base all'inizio), in memoria.
+ * Le modifiche di questa istanza aggiornano le viste subito dopo il commit; quelle delle altre
+ * istanze arrivano con booking.changed e invalidano i giorni coinvolti. Il TTL è solo una rete
+ * di sicurezza. Ogni modifica incrementa la versione del ristorante: un caricamento partito prima
+ * non può sovrascrivere la vista con dati vecchi.
+ */
+@Component
+public class DailyBookingCache {
+
+    private static final Comparator<Booking> BY_START =
+            Comparator.comparing(Booking::getBookingDate).thenComparing(Booking::getId);
+
+    private final BookingRepository bookingRepository;
+    private final ZoneId zone;
+
+    @Value("${app.booking-views.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<Long, Map<LocalDate, DayView>> views = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public DailyBookingCache(BookingRepository bookingRepository,
+                             @Value("${app.restaurant.zone-id:Europe/Rome}") String zoneId) {
+        this.bookingRepository = bookingRepository;
+        this.zone = ZoneId.of(zoneId);
+    }
+
+    /**
+     * Giorno corrente nel fuso dei ristoranti, indipendente da quello del server.
+     */
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    public List<Booking> getDay(Long restaurantId, LocalDate date) {
+        DayView view = viewsOf(restaurantId).get(date);
+        if (view != null && !view.isExpired()) {
+            return view.bookings;
+        }
+
+        long version = versionOf(restaurantId).get();
+        List<Booking> loaded = List.copyOf(bookingRepository
+                .findByRestaurantIdAndBookingDateGreaterThanEqualAndBookingDateLessThanOrderByBookingDateAsc(
+                        restaurantId, date.atStartOfDay(), date.plusDays(1).atStartOfDay()));
+        AtomicLong current = versionOf(restaurantId);
+        synchronized (current) {
+            if (current.get() == version) {
+                viewsOf(restaurantId).put(date, new DayView(loaded, expiry()));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Prenotazioni con inizio in [start, end], ricomposte dalle viste giornaliere.
+     */
+    public List<Booking> getRange(Long restaurantId, LocalDateTime start, LocalDateTime end) {
+        List<Booking> result = new ArrayList<>();
+        for (LocalDate day = start.toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+            for (Booking booking : getDay(restaurantId, day)) {
+                if (!booking.getBookingDate().isBefore(start) && !booking.getBookingDate().isAfter(end)) {
+                    result.add(booking);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Modifica committata da questa istanza: la prenotazione viene spostata nella vista del suo giorno.
+     */
+    public void applyLocal(Booking booking) {
+        AtomicLong version = versionOf(booking.getRestaurantId());
+        synchronized (version) {
+            version.incrementAndGet();
+            LocalDate day = booking.getBookingDate().toLocalDate();
+            Map<LocalDate, DayView> restaurantViews = viewsOf(booking.getRestaurantId());
+            restaurantViews.forEach((date, view) -> {
+                boolean contains = find(view.bookings, booking.getId()) != null;
+                if (date.equals(day)) {
+                    List<Booking> updated = without(view.bookings, booking.getId());
+                    updated.add(booking);
+                    updated.sort(BY_START);
+                    restaurantViews.put(date, new DayView(List.copyOf(updated), view.expiresAt));
+                } else if (contains) {
+                    restaurantViews.put(date, new DayView(List.copyOf(without(view.bookings, booking.getId())), view.expiresAt));
+                }
+            });
+        }
+    }
+
+    /**
+     * Modifica arrivata da un'altra istanza: si invalidano il giorno nuovo e quello che la conteneva.
+     * L'eco delle modifiche locali viene riconosciuta da updatedAt e ignorata.
+     */
+    public void applyRemote(BookingEventMessage message) {
+        if (message.getRestaurantId() == null || message.getBookingId() == null) {
+            return;
+        }
+        AtomicLong version = versionOf(message.getRestaurantId());
+        synchronized (version) {
+            version.incrementAndGet();
+            LocalDate day = message.getBookingDate() != null ? message.getBookingDate().toLocalDate() : null;
+            Map<LocalDate, DayView> restaurantViews = viewsOf(message.getRestaurantId());
+            restaurantViews.entrySet().removeIf(entry -> {
+                Booking cached = find(entry.getValue().bookings, message.getBookingId());
+                if (cached != null && isUpToDate(cached, message)) {
+                    return false;
+                }
+                return cached != null || day == null || entry.getKey().equals(day);
+            });
+        }
+    }
+
+    /**
+     * Scarta le viste scadute e quelle dei giorni passati, poi i ristoranti rimasti senza viste:
+     * senza questa pulizia la mappa crescerebbe con ogni giorno e ristorante mai richiesto.
+     */
+    @Scheduled(fixedDelayString = "${app.booking-views.sweep-interval-ms:60000}")
+    public void evictStale() {
+        LocalDate today = today();
+        for (Long restaurantId : views.keySet()) {
+            views.computeIfPresent(restaurantId, (id, restaurantViews) -> {
+                restaurantViews.entrySet().removeIf(entry -> entry.getValue().isExpired() || entry.getKey().isBefore(today));
+                return restaurantViews.isEmpty() ? null : restaurantViews;
+            });
+        }
+    }
+
+    private boolean isUpToDate(Booking cached, BookingEventMessage message) {
+        return cached.getUpdatedAt() != null && message.getUpdatedAt() != null
+                && !cached.getUpdatedAt().isBefore(message.getUpdatedAt());
+    }
+
+    private static Booking find(List<Booking> bookings, Long bookingId) {
+        for (Booking booking : bookings) {
+            if (booking.getId().equals(bookingId)) {
+                return booking;
+            }
+        }
+        return null;
+    }
+
+    private static List<Booking> without(List<Booking> bookings, Long bookingId) {
+        List<Booking> result = new ArrayList<>(bookings.size() + 1);
+        for (Booking booking : bookings) {
+            if (!booking.getId().equals(bookingId)) {
+                result.add(booking);
+            }
+        }
+        return result;
+    }
+
+    private long expiry() {
+        return System.currentTimeMillis() + ttlSeconds * 1000;
+    }
+
+    private Map<LocalDate, DayView> viewsOf(Long restaurantId) {
+        return views.computeIfAbsent(restaurantId, id -> new ConcurrentHashMap<>());
+    }
+
+    private AtomicLong versionOf(Long restaurantId) {
+        return versions.computeIfAbsent(restaurantId, id -> new AtomicLong());
+    }
+
+    private static class DayView {
+        final List<Booking> bookings;
+        final long expiresAt;
+
+        DayView(List<Booking> bookings, long expiresAt) {
+            this.bookings = bookings;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.tofork.bookingservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+/**
+ * Verifica che un ristorante appartenga all'owner chiamante.
+ * Nessuna cache: serve agli endpoint che modificano le prenotazioni, dove un passaggio di proprietà
+ * deve valere subito.
+ */
+@Service
+public class RestaurantOwnership {
+
+    private final RestTemplate restTemplate;
+
+    @Value("${restaurant.service.url:http://restaurant-service:8083}")
+    private String restaurantServiceUrl;
+
+    public RestaurantOwnership(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Lancia un'eccezione se il ristorante non è tra quelli dell'owner.
+     */
+    public void checkOwner(Long ownerId, Long restaurantId, String authHeader) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        if (authHeader != null) {
+            headers.set("Authorization", authHeader);
+        }
+
+        List<Long> ids;
+        try {
+            ids = restTemplate.exchange(
+                    restaurantServiceUrl + "/api/restaurants/owner/" + ownerId + "/ids",
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    new ParameterizedTypeReference<List<Long>>() {}
+            ).getBody();
+        } catch (Exception e) {
+            throw new Exception("Impossibile verificare il ristorante: " + e.getMessage());
+        }
+        if (ids == null || !ids.contains(restaurantId)) {
+            throw new Exception("Accesso negato: il ristorante non appartiene a questo utente");
+        }
+    }
+}
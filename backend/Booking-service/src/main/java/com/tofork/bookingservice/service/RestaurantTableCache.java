@@ -0,0 +1,87 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.RestaurantTableDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache locale dei tavoli (e quindi della capienza) di ogni ristorante.
+ * Le voci vengono invalidate dagli eventi "restaurant-tables.changed"; il TTL copre gli eventi persi.
+ */
+@Service
+public class RestaurantTableCache {
+
+    private final RestTemplate restTemplate;
+
+    @Value("${restaurant.service.url:http://restaurant-service:8083}")
+    private String restaurantServiceUrl;
+
+    @Value("${app.table-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final Map<Long, TablesSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public RestaurantTableCache(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Tavoli del ristorante ordinati per capienza crescente.
+     */
+    public List<RestaurantTableDTO> getTables(Long restaurantId) throws Exception {
+        TablesSnapshot snapshot = snapshots.get(restaurantId);
+        if (snapshot != null && !snapshot.isExpired()) {
+            return snapshot.tables;
+        }
+        TablesSnapshot loaded = new TablesSnapshot(load(restaurantId), System.currentTimeMillis() + ttlSeconds * 1000);
+        snapshots.put(restaurantId, loaded);
+        return loaded.tables;
+    }
+
+    public void invalidate(Long restaurantId) {
+        snapshots.remove(restaurantId);
+    }
+
+    private List<RestaurantTableDTO> load(Long restaurantId) throws Exception {
+        List<RestaurantTableDTO> tables;
+        try {
+            tables = restTemplate.exchange(
+                    restaurantServiceUrl + "/api/restaurants/" + restaurantId + "/tables",
+                    HttpMethod.GET,
+                    null,
+                    new ParameterizedTypeReference<List<RestaurantTableDTO>>() {}
+            ).getBody();
+        } catch (Exception e) {
+            throw new Exception("Tavoli del ristorante non disponibili: " + e.getMessage());
+        }
+        if (tables == null) {
+            return List.of();
+        }
+        return tables.stream()
+                .filter(table -> table.getId() != null && table.getCapacity() != null)
+                .sorted(Comparator.comparing(RestaurantTableDTO::getCapacity).thenComparing(RestaurantTableDTO::getId))
+                .toList();
+    }
+
+    private static class TablesSnapshot {
+        final List<RestaurantTableDTO> tables;
+        final long expiresAt;
+
+        TablesSnapshot(List<RestaurantTableDTO> tables, long expiresAt) {
+            this.tables = tables;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.RestaurantTableDTO;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Piano dei tavoli di un ristorante per un giorno, tutto in memoria.
+ * Le occupazioni fisse (hold, prenotazioni già iniziate o del giorno prima) si bloccano con
+ * block; le prenotazioni da sistemare si piazzano una alla volta con lo stesso best-fit di
+ * TableAssigner. Chi chiama decide l'ordine: il più grande per primo rende il best-fit efficace.
+ */
+final class SeatingPlanner {
+
+    private final List<RestaurantTableDTO> tables;
+    private final LocalDateTime dayStart;
+    private final LocalDateTime dayEnd;
+    private final Map<Long, List<LocalDateTime[]>> occupancy = new HashMap<>();
+
+    SeatingPlanner(List<RestaurantTableDTO> tables, LocalDateTime dayStart, LocalDateTime dayEnd) {
+        this.tables = tables;
+        this.dayStart = dayStart;
+        this.dayEnd = dayEnd;
+    }
+
+    void block(Long tableId, LocalDateTime start, LocalDateTime end) {
+        occupancy.computeIfAbsent(tableId, id -> new ArrayList<>()).add(new LocalDateTime[]{start, end});
+    }
+
+    /**
+     * Piazza la prenotazione sul tavolo migliore e lo occupa. Null se nessun tavolo è adatto.
+     */
+    Long place(int peopleCount, LocalDateTime start, LocalDateTime end) {
+        RestaurantTableDTO best = null;
+        long bestIdle = Long.MAX_VALUE;
+        for (RestaurantTableDTO table : tables) {
+            if (table.getCapacity() < peopleCount) {
+                continue;
+            }
+            // Tavoli ordinati per capienza: trovato un tavolo libero, quelli più grandi sprecano di più
+            if (best != null && table.getCapacity() > best.getCapacity()) {
+                break;
+            }
+            long idle = idleMinutes(table.getId(), start, end);
+            if (idle >= 0 && idle < bestIdle) {
+                best = table;
+                bestIdle = idle;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        block(best.getId(), start, end);
+        return best.getId();
+    }
+
+    // Minuti liberi attorno alla fascia sul tavolo, -1 se la fascia è occupata
+    private long idleMinutes(Long tableId, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime previousEnd = dayStart.isBefore(start) ? dayStart : start;
+        LocalDateTime nextStart = dayEnd.isAfter(end) ? dayEnd : end;
+        for (LocalDateTime[] busy : occupancy.getOrDefault(tableId, List.of())) {
+            if (busy[0].isBefore(end) && busy[1].isAfter(start)) {
+                return -1;
+            }
+            if (!busy[1].isAfter(start) && busy[1].isAfter(previousEnd)) {
+                previousEnd = busy[1];
+            }
+            if (!busy[0].isBefore(end) && busy[0].isBefore(nextStart)) {
+                nextStart = busy[0];
+            }
+        }
+        return Duration.between(previousEnd, start).toMinutes() + Duration.between(end, nextStart).toMinutes();
+    }
+}
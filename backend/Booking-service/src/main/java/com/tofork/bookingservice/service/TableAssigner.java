@@ -0,0 +1,74 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.RestaurantTableDTO;
+import com.tofork.bookingservice.dto.TimeSlot;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sceglie il tavolo per una nuova prenotazione con un best-fit sull'occupazione in memoria:
+ * prima il tavolo che spreca meno posti, poi quello in cui la fascia riempie meglio il buco
+ * libero (meno minuti inutilizzabili prima e dopo), infine l'id per avere un ordine stabile.
+ */
+@Component
+public class TableAssigner {
+
+    // Quanto lontano guardare per misurare il buco libero attorno alla fascia
+    private static final Duration GAP_HORIZON = Duration.ofHours(12);
+
+    private final RestaurantTableCache tableCache;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final BookingHoldRegistry holdRegistry;
+
+    public TableAssigner(RestaurantTableCache tableCache, BookingAvailabilityIndex availabilityIndex,
+                         BookingHoldRegistry holdRegistry) {
+        this.tableCache = tableCache;
+        this.availabilityIndex = availabilityIndex;
+        this.holdRegistry = holdRegistry;
+    }
+
+    /**
+     * Tavoli adatti e liberi, dal migliore al peggiore.
+     * Restituisce null se il ristorante non ha tavoli configurati.
+     */
+    public List<Long> rankTables(Long restaurantId, int peopleCount, LocalDateTime start, LocalDateTime end,
+                                 String ownHoldId) throws Exception {
+        List<RestaurantTableDTO> tables = tableCache.getTables(restaurantId);
+        if (tables.isEmpty()) {
+            return null;
+        }
+        Duration length = Duration.between(start, end);
+        List<Candidate> candidates = new ArrayList<>();
+        for (RestaurantTableDTO table : tables) {
+            if (table.getCapacity() < peopleCount
+                    || !availabilityIndex.isTableFree(restaurantId, table.getId(), start, end, null)
+                    || holdRegistry.isHeldByOther(restaurantId, table.getId(), start, end, ownHoldId)) {
+                continue;
+            }
+            candidates.add(new Candidate(table.getId(), table.getCapacity() - peopleCount,
+                    idleMinutesAround(restaurantId, table.getId(), start, end, length)));
+        }
+        candidates.sort(Comparator.comparingInt(Candidate::wastedSeats)
+                .thenComparingLong(Candidate::idleMinutes)
+                .thenComparing(Candidate::tableId));
+        return candidates.stream().map(Candidate::tableId).toList();
+    }
+
+    private long idleMinutesAround(Long restaurantId, Long tableId, LocalDateTime start, LocalDateTime end,
+                                   Duration length) {
+        for (TimeSlot gap : availabilityIndex.findFreeSlots(restaurantId, tableId,
+                start.minus(GAP_HORIZON), end.plus(GAP_HORIZON), length)) {
+            if (!gap.getStart().isAfter(start) && !gap.getEnd().isBefore(end)) {
+                return Duration.between(gap.getStart(), start).toMinutes() + Duration.between(end, gap.getEnd()).toMinutes();
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private record Candidate(Long tableId, int wastedSeats, long idleMinutes) {}
+}
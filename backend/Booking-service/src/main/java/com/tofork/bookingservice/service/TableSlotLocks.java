@@ -0,0 +1,70 @@
+package com.tofork.bookingservice.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Lock per tavolo e fascia oraria condivisi tra tutte le istanze, tramite advisory lock transazionali di Postgres.
+ * Ogni tavolo è diviso in fasce di un'ora: due prenotazioni sovrapposte hanno almeno una fascia in comune
+ * e si serializzano, mentre pranzo e cena sullo stesso tavolo non si contendono nulla.
+ * Il lock viene rilasciato da Postgres al commit o al rollback.
+ */
+@Component
+public class TableSlotLocks {
+
+    private static final long SLOT_SECONDS = 3600;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TableSlotLocks(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Attende il lock sulle fasce [start, end) del tavolo fino alla fine della transazione corrente.
+     */
+    public void lock(Long restaurantId, Long tableId, LocalDateTime start, LocalDateTime end) {
+        lock(restaurantId, List.of(tableId), start, end);
+    }
+
+    /**
+     * Attende il lock sulle fasce [start, end) di tutti i tavoli indicati.
+     * Le chiavi si prendono in ordine crescente: con una sola chiamata per transazione non ci sono deadlock.
+     */
+    public void lock(Long restaurantId, Collection<Long> tableIds, LocalDateTime start, LocalDateTime end) {
+        requireTransaction();
+        long firstSlot = start.toEpochSecond(ZoneOffset.UTC) / SLOT_SECONDS;
+        long lastSlot = (end.toEpochSecond(ZoneOffset.UTC) - 1) / SLOT_SECONDS;
+        TreeSet<Long> keys = new TreeSet<>();
+        for (Long tableId : tableIds) {
+            for (long slot = firstSlot; slot <= lastSlot; slot++) {
+                keys.add(key(restaurantId, tableId, slot));
+            }
+        }
+        for (long key : keys) {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", (RowCallbackHandler) rs -> {}, key);
+        }
+    }
+
+    // Una collisione tra chiavi serializza solo un po' di più, non rompe l'ordine di acquisizione
+    private static long key(Long restaurantId, Long tableId, long slot) {
+        long key = restaurantId;
+        key = key * 1_000_003L + tableId;
+        return key * 1_000_003L + slot;
+    }
+
+    // Fuori da una transazione il lock verrebbe rilasciato subito dopo lo statement
+    private void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Il lock sul tavolo richiede una transazione attiva");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.tofork.bookingservice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prenotazioni attive di un tavolo, ordinate per inizio. Immutabile: ogni modifica produce
+ * una nuova copia, così le letture non prendono lock.
+ * maxEnd[i] è la fine più lontana tra le prime i+1 prenotazioni: è monotona, quindi sia
+ * "c'è una sovrapposizione?" sia "da dove partono gli intervalli utili?" sono ricerche binarie.
+ */
+final class TableTimeline {
+
+    static final TableTimeline EMPTY = new TableTimeline(new long[0], new long[0], new long[0], new long[0]);
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnd;
+    private final long[] bookingIds;
+
+    private TableTimeline(long[] starts, long[] ends, long[] maxEnd, long[] bookingIds) {
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnd = maxEnd;
+        this.bookingIds = bookingIds;
+    }
+
+    boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    TableTimeline with(long bookingId, long start, long end) {
+        int n = starts.length;
+        int pos = upperBound(starts, start);
+        long[] newStarts = new long[n + 1];
+        long[] newEnds = new long[n + 1];
+        long[] newIds = new long[n + 1];
+        System.arraycopy(starts, 0, newStarts, 0, pos);
+        System.arraycopy(ends, 0, newEnds, 0, pos);
+        System.arraycopy(bookingIds, 0, newIds, 0, pos);
+        newStarts[pos] = start;
+        newEnds[pos] = end;
+        newIds[pos] = bookingId;
+        System.arraycopy(starts, pos, newStarts, pos + 1, n - pos);
+        System.arraycopy(ends, pos, newEnds, pos + 1, n - pos);
+        System.arraycopy(bookingIds, pos, newIds, pos + 1, n - pos);
+        return new TableTimeline(newStarts, newEnds, prefixMax(newEnds), newIds);
+    }
+
+    TableTimeline without(long bookingId, long start) {
+        // Scorre solo le prenotazioni con lo stesso inizio
+        for (int i = lowerBound(starts, start); i < starts.length && starts[i] == start; i++) {
+            if (bookingIds[i] == bookingId) {
+                return removeAt(i);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Vero se almeno una prenotazione diversa da excludeId interseca [from, to). O(log n)
+     * quando non ci sono conflitti o il conflitto non è la prenotazione esclusa.
+     */
+    boolean overlaps(long from, long to, Long excludeId) {
+        int last = lowerBound(starts, to) - 1;
+        if (last < 0 || maxEnd[last] <= from) {
+            return false;
+        }
+        if (excludeId == null) {
+            return true;
+        }
+        for (int i = firstReaching(from); i <= last; i++) {
+            if (ends[i] > from && bookingIds[i] != excludeId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Buchi di almeno minLength dentro [from, to), come coppie {inizio, fine}.
+     */
+    List<long[]> gaps(long from, long to, long minLength) {
+        List<long[]> gaps = new ArrayList<>();
+        long cursor = from;
+        for (int i = firstReaching(from); i < starts.length && starts[i] < to; i++) {
+            if (starts[i] - cursor >= minLength) {
+                gaps.add(new long[]{cursor, starts[i]});
+            }
+            cursor = Math.max(cursor, ends[i]);
+        }
+        if (to - cursor >= minLength) {
+            gaps.add(new long[]{cursor, to});
+        }
+        return gaps;
+    }
+
+    // Primo indice la cui fine massima supera "from": prima di lì nulla può intersecare
+    private int firstReaching(long from) {
+        int low = 0;
+        int high = maxEnd.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxEnd[mid] > from) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private TableTimeline removeAt(int index) {
+        int n = starts.length;
+        long[] newStarts = new long[n - 1];
+        long[] newEnds = new long[n - 1];
+        long[] newIds = new long[n - 1];
+        System.arraycopy(starts, 0, newStarts, 0, index);
+        System.arraycopy(ends, 0, newEnds, 0, index);
+        System.arraycopy(bookingIds, 0, newIds, 0, index);
+        System.arraycopy(starts, index + 1, newStarts, index, n - index - 1);
+        System.arraycopy(ends, index + 1, newEnds, index, n - index - 1);
+        System.arraycopy(bookingIds, index + 1, newIds, index, n - index - 1);
+        return new TableTimeline(newStarts, newEnds, prefixMax(newEnds), newIds);
+    }
+
+    private static long[] prefixMax(long[] ends) {
+        long[] result = new long[ends.length];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            result[i] = max;
+        }
+        return result;
+    }
+
+    // Primo indice con valore >= key
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Primo indice con valore > key
+    private static int upperBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tofork.bookingservice.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Timing wheel a un livello: size bucket da tickMillis ciascuno.
+ * Inserire costa O(1); ogni avanzamento visita solo i bucket dei tick trascorsi.
+ * Le scadenze oltre un giro restano nel bucket finché il loro tick non arriva.
+ * La cancellazione è implicita: chi riceve un elemento scaduto verifica se è ancora valido.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final Deque<Slot<T>>[] buckets;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int size, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new Deque[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    synchronized void schedule(T item, long deadlineMillis) {
+        // Arrotondato per eccesso: un elemento non scade mai prima della sua scadenza
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        buckets[(int) (tick % buckets.length)].add(new Slot<>(item, tick));
+    }
+
+    /**
+     * Avanza fino a nowMillis e restituisce gli elementi scaduti.
+     */
+    synchronized List<T> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        // Dopo una pausa più lunga di un giro basta visitare ogni bucket una volta
+        long last = Math.min(target, currentTick + buckets.length);
+        for (long tick = currentTick + 1; tick <= last; tick++) {
+            Iterator<Slot<T>> iterator = buckets[(int) (tick % buckets.length)].iterator();
+            while (iterator.hasNext()) {
+                Slot<T> slot = iterator.next();
+                if (slot.tick <= target) {
+                    expired.add(slot.item);
+                    iterator.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+        return expired;
+    }
+
+    private record Slot<T>(T item, long tick) {}
+}
@@ -0,0 +1,118 @@
+package com.tofork.bookingservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Due H2 in memoria al posto di primario e replica: ognuno contiene il proprio nome.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica;
+    private ReplicaStalenessGuard guard;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate writeTx;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("routing_primary");
+        replica = h2("routing_replica");
+        guard = new ReplicaStalenessGuard(new JdbcTemplate(replica), "SELECT lag_ms FROM replica_lag", 1000, 5000);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(guard);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primary,
+                ReplicaRoutingDataSource.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(txManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.endRequest();
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals("replica", readOnlyTx.execute(status -> whoAmI()));
+        assertEquals("primary", writeTx.execute(status -> whoAmI()));
+        assertEquals("primary", whoAmI());
+    }
+
+    @Test
+    void readsAfterOwnWriteStayOnPrimary() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        guard.beginRequest("Bearer user-1", null, response);
+        writeTx.executeWithoutResult(status -> whoAmI());
+        assertEquals("primary", readOnlyTx.execute(status -> whoAmI()));
+        assertNotNull(response.getCookie(ReplicaStalenessGuard.LAST_WRITE_COOKIE));
+        guard.endRequest();
+
+        // Richiesta successiva dello stesso client: ancora primario
+        guard.beginRequest("Bearer user-1", null, new MockHttpServletResponse());
+        assertEquals("primary", readOnlyTx.execute(status -> whoAmI()));
+        guard.endRequest();
+
+        // Altra istanza che vede solo il cookie
+        long lastWrite = Long.parseLong(response.getCookie(ReplicaStalenessGuard.LAST_WRITE_COOKIE).getValue());
+        guard.beginRequest(null, lastWrite, new MockHttpServletResponse());
+        assertEquals("primary", readOnlyTx.execute(status -> whoAmI()));
+        guard.endRequest();
+
+        guard.beginRequest("Bearer user-2", null, new MockHttpServletResponse());
+        assertEquals("replica", readOnlyTx.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void laggingOrUnreachableReplicaFallsBackToPrimary() {
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET lag_ms = 5000");
+        guard.checkReplicaLag();
+        assertEquals("primary", readOnlyTx.execute(status -> whoAmI()));
+
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET lag_ms = 10");
+        guard.checkReplicaLag();
+        assertEquals("replica", readOnlyTx.execute(status -> whoAmI()));
+
+        new JdbcTemplate(replica).execute("DROP TABLE replica_lag");
+        guard.checkReplicaLag();
+        assertEquals("primary", readOnlyTx.execute(status -> whoAmI()));
+    }
+
+    private String whoAmI() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DriverManagerDataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE node (name VARCHAR(20))");
+        setup.update("INSERT INTO node VALUES (?)", name.substring(name.indexOf('_') + 1));
+        setup.execute("CREATE TABLE replica_lag (lag_ms DOUBLE)");
+        setup.update("INSERT INTO replica_lag VALUES (0)");
+        return dataSource;
+    }
+}
@@ -0,0 +1,226 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.CreateBookingRequest;
+import com.tofork.bookingservice.dto.RestaurantTableDTO;
+import com.tofork.bookingservice.event.BookingChangeListener;
+import com.tofork.bookingservice.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Raffiche di createBooking concorrenti su un Postgres reale: gli advisory lock non esistono in H2.
+ * Senza Docker il test viene saltato.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({BookingServiceImpl.class, BookingAvailabilityIndex.class, BookingChangeListener.class, DailyBookingCache.class, TableSlotLocks.class,
+        BookingHoldRegistry.class, TableAssigner.class})
+class BookingConcurrencyStressTest {
+
+    private static final int TABLES = 8;
+    private static final int REQUESTS = 400;
+    private static final int THREADS = 32;
+    // Tavoli del ristorante usato per l'assegnazione automatica
+    private static final long AUTO_RESTAURANT = 100L;
+    private static final int AUTO_TABLES = 40;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "20");
+    }
+
+    // Gli eventi degli hold non servono qui
+    @MockitoBean
+    private RabbitTemplate rabbitTemplate;
+
+    // Al posto di Restaurant-service
+    @MockitoBean
+    private RestaurantTableCache tableCache;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime saturdayEvening = LocalDate.now().plusDays(7).atTime(20, 0);
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void burstOnSameSlotNeverOversellsATable() throws Exception {
+        // Tre inizi sfalsati di 30 minuti su fasce da 2 ore: si sovrappongono tutti, un vincitore per tavolo
+        BurstResult result = burst(THREADS, REQUESTS, i -> request(1L, (long) (i % TABLES) + 1,
+                saturdayEvening.plusMinutes(30L * (i % 3)), i));
+
+        assertTrue(result.errors.isEmpty(), "Errori inattesi: " + result.errors);
+        assertEquals(TABLES, result.accepted.get());
+        assertEquals(REQUESTS - TABLES, result.rejected.get());
+        assertEquals(0, countOverlappingPairs());
+    }
+
+    @Test
+    void burstOnDifferentTablesIsNotSerialized() throws Exception {
+        IntFunction<CreateBookingRequest> distinctTables =
+                i -> request((long) (i % 20) + 1, (long) i + 1, saturdayEvening, i);
+
+        // Riferimento: le stesse richieste una alla volta (fa anche da riscaldamento)
+        BurstResult serial = burst(1, REQUESTS, distinctTables);
+        assertTrue(serial.errors.isEmpty(), "Errori inattesi: " + serial.errors);
+        setUp();
+
+        BurstResult result = burst(THREADS, REQUESTS, distinctTables);
+
+        assertTrue(result.errors.isEmpty(), "Errori inattesi: " + result.errors);
+        assertEquals(REQUESTS, result.accepted.get());
+        assertEquals(0, countOverlappingPairs());
+        System.out.println("Raffica su tavoli diversi: " + throughput(serial) + " richieste/s in serie, "
+                + throughput(result) + " richieste/s su " + THREADS + " thread");
+        // Limite largo per le macchine di CI condivise: basta che il parallelo non sia più lento del seriale
+        assertTrue(result.elapsedNanos <= serial.elapsedNanos,
+                "Raffica su " + THREADS + " thread in " + TimeUnit.NANOSECONDS.toMillis(result.elapsedNanos)
+                        + " ms, seriale in " + TimeUnit.NANOSECONDS.toMillis(serial.elapsedNanos)
+                        + " ms: le richieste su tavoli diversi sono state serializzate");
+    }
+
+    @Test
+    void burstWithoutTableIdFillsEveryFreeTable() throws Exception {
+        List<RestaurantTableDTO> tables = new ArrayList<>();
+        for (int i = 1; i <= AUTO_TABLES; i++) {
+            RestaurantTableDTO table = new RestaurantTableDTO();
+            table.setId(1000L + i);
+            table.setTableNumber(i);
+            table.setCapacity(4);
+            tables.add(table);
+        }
+        when(tableCache.getTables(AUTO_RESTAURANT)).thenReturn(tables);
+
+        // Pranzo e cena: dentro ogni turno gli inizi sfalsati si sovrappongono tutti, tra i turni mai.
+        // Le richieste sono esattamente i posti disponibili: nessuna deve essere rifiutata.
+        LocalDateTime lunch = saturdayEvening.withHour(12);
+        BurstResult result = burst(THREADS, 2 * AUTO_TABLES, i -> request(AUTO_RESTAURANT, null,
+                (i % 2 == 0 ? lunch : saturdayEvening).plusMinutes(30L * (i / 2 % 3)), i));
+
+        assertTrue(result.errors.isEmpty(), "Errori inattesi: " + result.errors);
+        assertEquals(0, result.rejected.get(), "Richieste rifiutate con tavoli ancora liberi");
+        assertEquals(2 * AUTO_TABLES, result.accepted.get());
+        assertEquals(0, countOverlappingPairs());
+        assertEquals(0, bookingRepository.findAll().stream().filter(booking -> booking.getTableId() == null).count());
+    }
+
+    private BurstResult burst(int threads, int count, IntFunction<CreateBookingRequest> requests) throws Exception {
+        BurstResult result = new BurstResult();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < count; i++) {
+            CreateBookingRequest request = requests.apply(i);
+            pool.submit(() -> {
+                start.await();
+                try {
+                    bookingService.createBooking(request);
+                    result.accepted.incrementAndGet();
+                } catch (Exception e) {
+                    if (e.getMessage() != null
+                            && (e.getMessage().contains("già prenotato") || e.getMessage().contains("Nessun tavolo"))) {
+                        result.rejected.incrementAndGet();
+                    } else {
+                        result.errors.add(String.valueOf(e.getMessage()));
+                    }
+                }
+                return null;
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES), "La raffica non è terminata in tempo");
+        result.elapsedNanos = System.nanoTime() - begin;
+        result.requests = count;
+        return result;
+    }
+
+    private static long throughput(BurstResult result) {
+        return Math.round(result.requests * 1e9 / Math.max(1, result.elapsedNanos));
+    }
+
+    private CreateBookingRequest request(Long restaurantId, Long tableId, LocalDateTime start, int user) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setUserId((long) user + 1);
+        request.setUserEmail("user" + user + "@tofork.test");
+        request.setUserName("Utente " + user);
+        request.setRestaurantId(restaurantId);
+        request.setRestaurantName("Ristorante " + restaurantId);
+        request.setTableId(tableId);
+        request.setBookingDate(start);
+        request.setEndTime(start.plusHours(2));
+        request.setPeopleCount(2);
+        return request;
+    }
+
+    private int countOverlappingPairs() {
+        Integer pairs = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM bookings a JOIN bookings b " +
+                "ON a.id < b.id AND a.restaurant_id = b.restaurant_id AND a.table_id = b.table_id " +
+                "AND a.booking_date < b.end_time AND b.booking_date < a.end_time " +
+                "WHERE a.status IN ('PENDING', 'CONFIRMED') AND b.status IN ('PENDING', 'CONFIRMED')",
+                Integer.class);
+        return pairs != null ? pairs : 0;
+    }
+
+    private static class BurstResult {
+        final AtomicInteger accepted = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        long elapsedNanos;
+        int requests;
+    }
+}
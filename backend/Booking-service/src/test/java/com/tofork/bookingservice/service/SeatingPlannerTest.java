@@ -0,0 +1,61 @@
+package com.tofork.bookingservice.service;
+
+import com.tofork.bookingservice.dto.RestaurantTableDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Best-fit del piano dei tavoli: giornata di servizio 12:00-23:00.
+ */
+class SeatingPlannerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 6, 13);
+
+    @Test
+    void smallestFittingTableWinsThenTheNextOne() {
+        SeatingPlanner planner = planner(table(1L, 2), table(2L, 4), table(3L, 6));
+
+        assertEquals(2L, planner.place(3, at(20, 0), at(22, 0)));
+        assertEquals(3L, planner.place(3, at(20, 0), at(22, 0)));
+        assertNull(planner.place(3, at(20, 0), at(22, 0)));
+    }
+
+    @Test
+    void amongEqualTablesTheSlotGoesWhereItLeavesLessIdleTime() {
+        SeatingPlanner planner = planner(table(10L, 4), table(11L, 4));
+        planner.block(11L, at(12, 0), at(19, 0));
+
+        // Sul tavolo 11 la fascia inizia dove finisce l'occupazione: restano solo i 120 minuti dopo
+        assertEquals(11L, planner.place(4, at(19, 0), at(21, 0)));
+    }
+
+    @Test
+    void blockedSlotIsNeverAssigned() {
+        SeatingPlanner planner = planner(table(10L, 4));
+        planner.block(10L, at(20, 0), at(22, 0));
+
+        assertNull(planner.place(2, at(21, 0), at(23, 0)));
+        assertEquals(10L, planner.place(2, at(18, 0), at(20, 0)));
+    }
+
+    private static SeatingPlanner planner(RestaurantTableDTO... tables) {
+        return new SeatingPlanner(List.of(tables), at(12, 0), at(23, 0));
+    }
+
+    private static RestaurantTableDTO table(Long id, int capacity) {
+        RestaurantTableDTO table = new RestaurantTableDTO();
+        table.setId(id);
+        table.setCapacity(capacity);
+        return table;
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.atTime(hour, minute);
+    }
+}
@@ -0,0 +1,59 @@
+package com.tofork.bookingservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Le ricerche binarie sulla fine massima dei prefissi: una prenotazione lunga all'inizio
+ * deve restare visibile anche dopo prenotazioni più corte che iniziano dopo di lei.
+ */
+class TableTimelineTest {
+
+    @Test
+    void overlapsSeesALongBookingHiddenBehindShorterOnes() {
+        TableTimeline timeline = TableTimeline.EMPTY.with(1, 0, 100).with(2, 10, 20).with(3, 30, 40);
+
+        assertTrue(timeline.overlaps(50, 60, null));
+        assertFalse(timeline.overlaps(50, 60, 1L));
+        assertTrue(timeline.overlaps(15, 16, 1L));
+        assertFalse(timeline.overlaps(100, 110, null));
+        assertFalse(timeline.overlaps(-10, 0, null));
+    }
+
+    @Test
+    void gapsSkipBookingsEndedBeforeTheRange() {
+        TableTimeline timeline = TableTimeline.EMPTY.with(1, 0, 5).with(2, 6, 8).with(3, 50, 60);
+
+        assertEquals(List.of("[10, 50]", "[60, 100]"), asText(timeline.gaps(10, 100, 5)));
+        assertEquals(List.of(), asText(timeline.gaps(10, 100, 45)));
+    }
+
+    @Test
+    void gapsDoNotOpenInsideANestedBooking() {
+        TableTimeline timeline = TableTimeline.EMPTY.with(1, 0, 100).with(2, 10, 20);
+
+        assertEquals(List.of("[100, 150]"), asText(timeline.gaps(0, 150, 10)));
+    }
+
+    @Test
+    void withoutRemovesOnlyTheGivenBooking() {
+        TableTimeline timeline = TableTimeline.EMPTY.with(1, 10, 20).with(2, 10, 30);
+
+        TableTimeline removed = timeline.without(1, 10);
+        assertTrue(removed.overlaps(25, 26, null));
+        assertFalse(removed.overlaps(12, 13, 2L));
+        assertSame(timeline, timeline.without(99, 10));
+        assertTrue(removed.without(2, 10).isEmpty());
+    }
+
+    private static List<String> asText(List<long[]> gaps) {
+        return gaps.stream().map(Arrays::toString).toList();
+    }
+}
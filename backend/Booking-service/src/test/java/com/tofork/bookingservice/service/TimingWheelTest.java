@@ -0,0 +1,53 @@
+package com.tofork.bookingservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ruota da 8 tick di un secondo: un giro dura 8 secondi.
+ */
+class TimingWheelTest {
+
+    @Test
+    void itemExpiresOnItsTickAndNeverBefore() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("hold", 2500);
+
+        assertEquals(List.of(), wheel.advance(2999));
+        assertEquals(List.of("hold"), wheel.advance(3000));
+        assertEquals(List.of(), wheel.advance(4000));
+    }
+
+    @Test
+    void deadlineBeyondOneTurnSurvivesWrapAround() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        // Tick 20: stesso bucket dei tick 4 e 12, visitati prima della scadenza
+        wheel.schedule("far", 20_000);
+
+        assertEquals(List.of(), wheel.advance(5000));
+        assertEquals(List.of(), wheel.advance(19_999));
+        assertEquals(List.of("far"), wheel.advance(20_000));
+    }
+
+    @Test
+    void longPauseExpiresEverythingInOnePass() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 3000);
+        wheel.schedule("b", 7000);
+
+        assertEquals(List.of("a", "b"), wheel.advance(1_000_000));
+    }
+
+    @Test
+    void pastDeadlineExpiresOnTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.advance(1_000_000);
+        wheel.schedule("late", 0);
+
+        assertEquals(List.of(), wheel.advance(1_000_999));
+        assertEquals(List.of("late"), wheel.advance(1_001_000));
+    }
+}
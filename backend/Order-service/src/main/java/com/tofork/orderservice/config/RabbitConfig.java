@@ -0,0 +1,80 @@
+package com.tofork.orderservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitConfig {
+
+    public static final String BOOKING_REPLICA_QUEUE = "order.booking-replica";
+
+    @Value("${app.rabbitmq.exchange:tofork.exchange}")
+    private String exchangeName;
+
+    @Bean
+    public TopicExchange toforkExchange() {
+        return new TopicExchange(exchangeName, true, false);
+    }
+
+    // Eventi prenotazione -> replica locale usata per validare gli ordini DINE_IN
+    @Bean
+    public Queue bookingReplicaQueue() {
+        return QueueBuilder.durable(BOOKING_REPLICA_QUEUE).build();
+    }
+
+    @Bean
+    public Binding bookingReplicaBinding(Queue bookingReplicaQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(bookingReplicaQueue).to(toforkExchange).with("booking.#");
+    }
+
+    // Invalidazione listino prezzi: coda anonima per istanza, ogni replica riceve ogni evento
+    @Bean
+    public Queue menuChangesQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding menuChangesBinding(Queue menuChangesQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(menuChangesQueue).to(toforkExchange).with("menu.#");
+    }
+
+    // Invalidazione cache owner -> ristoranti: coda anonima per istanza
+    @Bean
+    public Queue restaurantChangesQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding restaurantChangesBinding(Queue restaurantChangesQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(restaurantChangesQueue).to(toforkExchange).with("restaurant.changed");
+    }
+
+    // Stream SSE della cucina: coda anonima per istanza, ogni replica riceve gli eventi ordine di tutte
+    @Bean
+    public Queue orderStreamQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding orderStreamBinding(Queue orderStreamQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(orderStreamQueue).to(toforkExchange).with("order.*");
+    }
+
+    // I messaggi arrivano da altri servizi con classi diverse: si usa sempre il tipo del parametro del listener
+    @Bean
+    public MessageConverter jsonMessageConverter(ObjectMapper objectMapper) {
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter(objectMapper);
+        converter.setAlwaysConvertToInferredType(true);
+        return converter;
+    }
+}
@@ -0,0 +1,49 @@
+package com.tofork.orderservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Apre e chiude il contesto del ReplicaStalenessGuard per ogni richiesta HTTP.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReplicaStalenessGuard guard;
+
+    public ReadYourWritesFilter(ReplicaStalenessGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        guard.beginRequest(request.getHeader("Authorization"), lastWriteCookie(request), response);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            guard.endRequest();
+        }
+    }
+
+    private Long lastWriteCookie(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return null;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (ReplicaStalenessGuard.LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.valueOf(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -57,7 +57,7 @@ public class SecurityConfig {
         configuration.setAllowCredentials(true);
         
         configuration.setExposedHeaders(Arrays.asList(
-            "Authorization", "Cache-Control", "Content-Type"
+            "Authorization", "Cache-Control", "Content-Type", "Idempotent-Replayed"
         ));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
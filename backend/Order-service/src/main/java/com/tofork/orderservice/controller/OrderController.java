@@ -2,19 +2,34 @@ package com.tofork.orderservice.controller;
 
 import com.tofork.orderservice.dto.ApiResponse;
 import com.tofork.orderservice.dto.CreateOrderRequest;
+import com.tofork.orderservice.dto.OrderItemDTO;
+import com.tofork.orderservice.dto.OrderPage;
+import com.tofork.orderservice.dto.OrderView;
+import com.tofork.orderservice.dto.StatusTransitionRequest;
+import com.tofork.orderservice.dto.StatusTransitionResult;
 import com.tofork.orderservice.jwt.JwtService;
 import com.tofork.orderservice.model.Order;
 import com.tofork.orderservice.model.OrderStatus;
+import com.tofork.orderservice.model.OrderType;
+import com.tofork.orderservice.service.BookingReplicaService;
+import com.tofork.orderservice.service.IdempotencyService;
+import com.tofork.orderservice.service.OrderQueryService;
 import com.tofork.orderservice.service.OrderService;
+import com.tofork.orderservice.service.OrderStreamService;
+import com.tofork.orderservice.service.RestaurantDirectory;
+import com.tofork.orderservice.service.SalesRollupService;
+import com.tofork.orderservice.service.StatusConflictException;
+import com.tofork.orderservice.service.StreamTicketService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +43,29 @@ public class OrderController {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderStreamService orderStreamService;
+
+    @Autowired
+    private RestaurantDirectory restaurantDirectory;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BookingReplicaService bookingReplicaService;
+
+    @Autowired
+    private StreamTicketService streamTicketService;
+
+    private static final String INTERNAL_SECRET = "TOFORK_INTERNAL_SECRET_2025";
+
     // Helper for Auth
     private Long getUserId(String authHeader) throws Exception {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) throw new Exception("Token non valido");
@@ -36,28 +74,103 @@ public class OrderController {
         return jwtService.getUserIdFromToken(token);
     }
 
+    // Prenotazioni DINE_IN non ancora replicate: la lettura da Booking-service avviene qui, prima della transazione
+    private void ensureBookingsReplicated(List<CreateOrderRequest> requests, String authHeader) throws Exception {
+        for (CreateOrderRequest request : requests) {
+            if (OrderType.DINE_IN.name().equals(request.getOrderType())) {
+                bookingReplicaService.ensureReplicated(request.getBookingId(), authHeader);
+            }
+        }
+    }
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 500;
+
     private void verifyRole(String authHeader, String requiredRole) throws Exception {
          String token = authHeader.substring(7);
          String role = jwtService.getRoleFromToken(token);
          if (!requiredRole.equals(role)) throw new Exception("Accesso negato");
     }
 
+    /**
+     * Con l'header Idempotency-Key i retry del client restituiscono l'ordine già creato
+     * invece di crearne uno nuovo.
+     */
     @PostMapping
-    public ResponseEntity<ApiResponse<Order>> createOrder(
+    public ResponseEntity<?> createOrder(
             @RequestBody CreateOrderRequest request,
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        Long userId;
+        try {
+            userId = getUserId(authHeader);
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error("Errore creazione ordine: " + e.getMessage()));
+        }
+        return idempotencyService.execute("orders:" + userId, idempotencyKey, request,
+                () -> doCreateOrder(request, userId, authHeader));
+    }
+
+    private ResponseEntity<ApiResponse<Order>> doCreateOrder(CreateOrderRequest request, Long userId, String authHeader) {
         try {
-            Long userId = getUserId(authHeader);
             if (request.getUserId() != null && !request.getUserId().equals(userId)) {
                  return ResponseEntity.ok(ApiResponse.error("User ID check failed"));
             }
-            Order order = orderService.createOrder(request, userId, authHeader);
+            ensureBookingsReplicated(List.of(request), authHeader);
+            Order order = orderService.createOrder(request, userId);
             return ResponseEntity.ok(ApiResponse.success("Ordine creato con successo", order));
         } catch (Exception e) {
             return ResponseEntity.ok(ApiResponse.error("Errore creazione ordine: " + e.getMessage()));
         }
     }
 
+    /**
+     * Inserimento massivo per l'integrazione POS del ristorante.
+     * Gli ordini devono appartenere tutti al ristorante dell'owner autenticato.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<Order>>> createOrders(
+            @RequestBody List<CreateOrderRequest> requests,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Long userId = getUserId(authHeader);
+            verifyRole(authHeader, "RESTAURANT_OWNER");
+
+            if (requests == null || requests.isEmpty()) {
+                return ResponseEntity.ok(ApiResponse.error("Nessun ordine da inserire"));
+            }
+            if (requests.size() > MAX_BATCH_SIZE) {
+                return ResponseEntity.ok(ApiResponse.error("Massimo " + MAX_BATCH_SIZE + " ordini per richiesta"));
+            }
+
+            // L'utente degli ordini è sempre quello del token: un userId diverso nel body lo può passare solo un ADMIN
+            boolean admin = "ADMIN".equals(jwtService.getRoleFromToken(authHeader.substring(7)));
+            for (CreateOrderRequest request : requests) {
+                if (request.getUserId() != null && !request.getUserId().equals(userId) && !admin) {
+                    return ResponseEntity.ok(ApiResponse.error("Accesso negato: userId diverso da quello autenticato"));
+                }
+                if (!admin) {
+                    request.setUserId(userId);
+                }
+            }
+
+            Long restaurantId = fetchRestaurantIdByOwner(userId, authHeader);
+            for (CreateOrderRequest request : requests) {
+                if (request.getRestaurantId() == null) {
+                    request.setRestaurantId(restaurantId);
+                } else if (!request.getRestaurantId().equals(restaurantId)) {
+                    return ResponseEntity.ok(ApiResponse.error("Ristorante errato per uno degli ordini"));
+                }
+            }
+
+            ensureBookingsReplicated(requests, authHeader);
+            List<Order> orders = orderService.createOrders(requests, userId);
+            return ResponseEntity.ok(ApiResponse.success(orders.size() + " ordini creati con successo", orders));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error("Errore creazione ordini: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<Order>> updateOrder(
             @PathVariable Long id,
@@ -72,6 +185,21 @@ public class OrderController {
         }
     }
 
+    @PatchMapping("/{id}/items/{itemId}")
+    public ResponseEntity<ApiResponse<Order>> updateOrderItem(
+            @PathVariable Long id,
+            @PathVariable Long itemId,
+            @RequestBody OrderItemDTO changes,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Long userId = getUserId(authHeader);
+            Order order = orderService.updateOrderItem(id, itemId, changes, userId);
+            return ResponseEntity.ok(ApiResponse.success("Piatto aggiornato", order));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error("Errore aggiornamento piatto: " + e.getMessage()));
+        }
+    }
+
     // --- NUOVO ENDPOINT DELETE ---
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<Object>> deleteOrder(
@@ -87,19 +215,21 @@ public class OrderController {
     }
     // ----------------------------
 
+    // Senza "limit" si restituiscono al massimo MAX_PAGE_SIZE ordini: per lo storico completo si usa la versione paginata
     @GetMapping("/user/me")
-    public ResponseEntity<ApiResponse<List<Order>>> getMyOrders(
+    public ResponseEntity<ApiResponse<List<OrderView>>> getMyOrders(
             @RequestHeader("Authorization") String authHeader) {
         try {
             Long userId = getUserId(authHeader);
-            return ResponseEntity.ok(ApiResponse.success("Success", orderService.getUserOrders(userId)));
+            return ResponseEntity.ok(ApiResponse.success("Success",
+                    orderQueryService.toViews(orderService.getUserOrders(userId, MAX_PAGE_SIZE))));
         } catch (Exception e) {
             return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
         }
     }
 
     @GetMapping("/restaurant/me")
-    public ResponseEntity<ApiResponse<List<Order>>> getRestaurantOrders(
+    public ResponseEntity<ApiResponse<List<OrderView>>> getRestaurantOrders(
             @RequestParam(required = false) String status,
             @RequestHeader("Authorization") String authHeader) {
         try {
@@ -110,41 +240,164 @@ public class OrderController {
 
             List<Order> list;
             if (status != null && !status.isEmpty()) {
-                list = orderService.getRestaurantOrdersByStatus(restaurantId, OrderStatus.valueOf(status.toUpperCase()));
+                list = orderService.getRestaurantOrdersByStatus(restaurantId, OrderStatus.valueOf(status.toUpperCase()), MAX_PAGE_SIZE);
             } else {
-                list = orderService.getRestaurantOrders(restaurantId);
+                list = orderService.getRestaurantOrders(restaurantId, MAX_PAGE_SIZE);
             }
-            return ResponseEntity.ok(ApiResponse.success("Success", list));
+            return ResponseEntity.ok(ApiResponse.success("Success", orderQueryService.toViews(list)));
 
         } catch (Exception e) {
             return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
         }
     }
 
-    // Helper to fetch restaurant ID
+    // Versione paginata: attiva quando il client passa "limit" (e "cursor" dalla seconda pagina).
+    // Gli ordini chiusi e archiviati sono inclusi solo con includeArchived=true
+    @GetMapping(value = "/user/me", params = "limit")
+    public ResponseEntity<ApiResponse<OrderPage<OrderView>>> getMyOrdersPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Long userId = getUserId(authHeader);
+            return ResponseEntity.ok(ApiResponse.success("Success",
+                    orderService.getUserOrderHistory(userId, cursor, clampLimit(limit), includeArchived)));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/restaurant/me", params = "limit")
+    public ResponseEntity<ApiResponse<OrderPage<OrderView>>> getRestaurantOrdersPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Long userId = getUserId(authHeader);
+            verifyRole(authHeader, "RESTAURANT_OWNER");
+
+            Long restaurantId = fetchRestaurantIdByOwner(userId, authHeader);
+            OrderStatus orderStatus = (status != null && !status.isEmpty()) ? OrderStatus.valueOf(status.toUpperCase()) : null;
+            return ResponseEntity.ok(ApiResponse.success("Success",
+                    orderService.getRestaurantOrderHistory(restaurantId, orderStatus, cursor, clampLimit(limit), includeArchived)));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    private int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // --- Statistiche vendite (servite dal rollup giornaliero) ---
+
+    @GetMapping("/restaurant/me/analytics/popular-items")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getPopularItems(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Long userId = getUserId(authHeader);
+            verifyRole(authHeader, "RESTAURANT_OWNER");
+            Long restaurantId = fetchRestaurantIdByOwner(userId, authHeader);
+
+            LocalDate toDate = to != null ? LocalDate.parse(to) : LocalDate.now();
+            LocalDate fromDate = from != null ? LocalDate.parse(from) : toDate.minusDays(30);
+
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Object[] row : salesRollupService.getMostPopularItems(restaurantId, fromDate, toDate)) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("name", row[0]);
+                item.put("menuItemId", row[1]);
+                item.put("totalQuantity", row[2]);
+                item.put("totalRevenue", row[3]);
+                result.add(item);
+            }
+            return ResponseEntity.ok(ApiResponse.success("Success", result));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/analytics/menu-items/{menuItemId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMenuItemSales(
+            @PathVariable Long menuItemId,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Long userId = getUserId(authHeader);
+            verifyRole(authHeader, "RESTAURANT_OWNER");
+            // Solo le vendite dei ristoranti dell'owner: un menuItemId altrui dà totali a zero
+            List<Long> restaurantIds = restaurantDirectory.getRestaurantIdsByOwner(userId, authHeader);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("menuItemId", menuItemId);
+            result.put("totalQuantity", salesRollupService.getTotalQuantitySold(menuItemId, restaurantIds));
+            result.put("totalRevenue", salesRollupService.getTotalRevenue(menuItemId, restaurantIds));
+            return ResponseEntity.ok(ApiResponse.success("Success", result));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Ticket monouso per aprire lo stream: EventSource non permette header custom,
+     * e il JWT in query string finirebbe nei log di proxy e gateway.
+     */
+    @PostMapping("/restaurant/me/stream-ticket")
+    public ResponseEntity<ApiResponse<Map<String, String>>> createStreamTicket(
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Long userId = getUserId(authHeader);
+            verifyRole(authHeader, "RESTAURANT_OWNER");
+
+            Long restaurantId = fetchRestaurantIdByOwner(userId, authHeader);
+            return ResponseEntity.ok(ApiResponse.success("Success", Map.of("ticket", streamTicketService.issue(restaurantId))));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Stream SSE della coda cucina del ristorante dell'owner.
+     * Autenticazione con l'header Authorization oppure con un ticket di /restaurant/me/stream-ticket.
+     */
+    @GetMapping(value = "/restaurant/me/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRestaurantOrders(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(value = "ticket", required = false) String ticket,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        try {
+            Long restaurantId;
+            if ((authHeader == null || authHeader.isEmpty()) && ticket != null) {
+                restaurantId = streamTicketService.consume(ticket);
+            } else {
+                Long userId = getUserId(authHeader);
+                verifyRole(authHeader, "RESTAURANT_OWNER");
+                restaurantId = fetchRestaurantIdByOwner(userId, authHeader);
+            }
+
+            String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+            return orderStreamService.subscribe(restaurantId,
+                    lastEventId != null && !lastEventId.isEmpty() ? lastEventId : null);
+        } catch (Exception e) {
+            SseEmitter emitter = new SseEmitter();
+            try {
+                emitter.send(SseEmitter.event().name("error").data(ApiResponse.error(e.getMessage()), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (Exception sendError) {
+                emitter.completeWithError(sendError);
+            }
+            return emitter;
+        }
+    }
+
+    // Helper to fetch restaurant ID (cache locale con TTL, vedi RestaurantDirectory)
     private Long fetchRestaurantIdByOwner(Long ownerId, String authHeader) throws Exception {
-        // Mocking logic or real call - let's try real call
-        // http://tofork-restaurant-service:8083/api/restaurants/owner/{id}
-        // http://tofork-restaurant-service:8083/api/restaurants/owner/{id}
-         RestTemplate rt = new RestTemplate();
-         HttpHeaders headers = new HttpHeaders();
-         headers.set("Authorization", authHeader);
-         HttpEntity<String> entity = new HttpEntity<>(headers);
-
-         // Response is List<Restaurant>
-         ResponseEntity<List> response = rt.exchange(
-             "http://restaurant-service:8083/api/restaurants/owner/" + ownerId,
-             HttpMethod.GET,
-             entity,
-             List.class
-         );
-
-         List<Map<String, Object>> restaurants = response.getBody();
-         if (restaurants != null && !restaurants.isEmpty()) {
-             Number n = (Number) restaurants.get(0).get("id");
-             return n.longValue();
-         }
-         throw new Exception("Nessun ristorante trovato per questo utente");
+        return restaurantDirectory.getRestaurantIdByOwner(ownerId, authHeader);
     }
 
     @PatchMapping("/{id}/status")
@@ -158,9 +411,41 @@ public class OrderController {
 
             String status = body.get("status");
             if (status == null) return ResponseEntity.ok(ApiResponse.error("Status mancante"));
+            String expected = body.get("expectedStatus");
 
-            Order order = orderService.updateOrderStatus(id, OrderStatus.valueOf(status.toUpperCase()), userId);
+            Long restaurantId = fetchRestaurantIdByOwner(userId, authHeader);
+            Order order = orderService.updateOrderStatus(id, OrderStatus.valueOf(status.toUpperCase()),
+                    expected != null ? OrderStatus.valueOf(expected.toUpperCase()) : null, restaurantId);
             return ResponseEntity.ok(ApiResponse.success("Stato aggiornato", order));
+        } catch (StatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Più transizioni di stato in una sola chiamata (es. tablet della cucina).
+     * Gli ordini cambiati nel frattempo vengono restituiti in "conflicts" senza annullare gli altri.
+     */
+    @PatchMapping("/restaurant/me/status")
+    public ResponseEntity<ApiResponse<StatusTransitionResult>> updateStatuses(
+            @RequestBody List<StatusTransitionRequest> transitions,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            Long userId = getUserId(authHeader);
+            verifyRole(authHeader, "RESTAURANT_OWNER");
+
+            if (transitions == null || transitions.isEmpty()) {
+                return ResponseEntity.ok(ApiResponse.error("Nessuna transizione da applicare"));
+            }
+            if (transitions.size() > MAX_BATCH_SIZE) {
+                return ResponseEntity.ok(ApiResponse.error("Massimo " + MAX_BATCH_SIZE + " transizioni per richiesta"));
+            }
+
+            Long restaurantId = fetchRestaurantIdByOwner(userId, authHeader);
+            StatusTransitionResult result = orderService.updateOrderStatuses(transitions, restaurantId);
+            return ResponseEntity.ok(ApiResponse.success(result.getUpdated().size() + " ordini aggiornati", result));
         } catch (Exception e) {
             return ResponseEntity.ok(ApiResponse.error(e.getMessage()));
         }
@@ -173,7 +458,7 @@ public class OrderController {
         @RequestHeader(value = "X-Internal-Secret", required = false) String internalSecret) {
         try {
             // Internal Service Auth Bypass
-            if ("TOFORK_INTERNAL_SECRET_2025".equals(internalSecret)) {
+            if (INTERNAL_SECRET.equals(internalSecret)) {
                 // Authorized system call
             } else {
                 getUserId(authHeader); // Validate user token otherwise
@@ -0,0 +1,30 @@
+package com.tofork.orderservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Messaggio pubblicato da Booking-service ad ogni modifica di una prenotazione.
+ */
+public class BookingEventMessage {
+    private Long bookingId;
+    private Long userId;
+    private Long restaurantId;
+    private String status;
+    private LocalDateTime updatedAt;
+
+    // Getters and Setters
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
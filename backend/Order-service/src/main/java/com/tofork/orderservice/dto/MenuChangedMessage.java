@@ -0,0 +1,11 @@
+package com.tofork.orderservice.dto;
+
+/**
+ * Messaggio di Restaurant-service: il menu del ristorante è cambiato.
+ */
+public class MenuChangedMessage {
+    private Long restaurantId;
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+}
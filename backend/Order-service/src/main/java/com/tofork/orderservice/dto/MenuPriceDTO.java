@@ -0,0 +1,28 @@
+package com.tofork.orderservice.dto;
+
+/**
+ * Prezzo e disponibilità di un piatto, come esposti da Restaurant-service.
+ */
+public class MenuPriceDTO {
+    private Long id;
+    private Long restaurantId;
+    private String name;
+    private Double price;
+    private boolean available;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Double getPrice() { return price; }
+    public void setPrice(Double price) { this.price = price; }
+
+    public boolean isAvailable() { return available; }
+    public void setAvailable(boolean available) { this.available = available; }
+}
@@ -0,0 +1,118 @@
+package com.tofork.orderservice.dto;
+
+import com.tofork.orderservice.model.Order;
+import com.tofork.orderservice.model.OrderEventType;
+import com.tofork.orderservice.model.OrderItem;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messaggio pubblicato su RabbitMQ ad ogni modifica di un ordine (routing key "order.*").
+ * Il message id AMQP è l'id dell'outbox: i consumer possono usarlo per scartare i duplicati.
+ */
+public class OrderEventMessage {
+    private String type;
+    private Long orderId;
+    private Long userId;
+    private Long restaurantId;
+    private Long bookingId;
+    private String orderType;
+    private String status;
+    private boolean paid;
+    private String paymentId;
+    private Double totalAmount;
+    private LocalDateTime createdAt;
+    private LocalDateTime occurredAt;
+    // Righe dell'ordine: servono allo stream della cucina
+    private List<ItemLine> items = new ArrayList<>();
+
+    public static OrderEventMessage from(OrderEventType type, Order order) {
+        OrderEventMessage message = new OrderEventMessage();
+        message.type = type.name();
+        message.orderId = order.getId();
+        message.userId = order.getUserId();
+        message.restaurantId = order.getRestaurantId();
+        message.bookingId = order.getBookingId();
+        message.orderType = order.getOrderType() != null ? order.getOrderType().name() : null;
+        message.status = order.getStatus() != null ? order.getStatus().name() : null;
+        message.paid = order.isPaid();
+        message.paymentId = order.getPaymentId();
+        message.totalAmount = order.getTotalAmount();
+        message.createdAt = order.getCreatedAt();
+        message.occurredAt = LocalDateTime.now();
+        for (OrderItem item : order.getItems()) {
+            message.items.add(new ItemLine(item.getMenuItemId(), item.getName(), item.getQuantity(), item.getSpecialRequests()));
+        }
+        return message;
+    }
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public String getOrderType() { return orderType; }
+    public void setOrderType(String orderType) { this.orderType = orderType; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public boolean isPaid() { return paid; }
+    public void setPaid(boolean paid) { this.paid = paid; }
+
+    public String getPaymentId() { return paymentId; }
+    public void setPaymentId(String paymentId) { this.paymentId = paymentId; }
+
+    public Double getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Double totalAmount) { this.totalAmount = totalAmount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+
+    public List<ItemLine> getItems() { return items; }
+    public void setItems(List<ItemLine> items) { this.items = items; }
+
+    public static class ItemLine {
+        private Long menuItemId;
+        private String name;
+        private Integer quantity;
+        private String specialRequests;
+
+        public ItemLine() {}
+
+        public ItemLine(Long menuItemId, String name, Integer quantity, String specialRequests) {
+            this.menuItemId = menuItemId;
+            this.name = name;
+            this.quantity = quantity;
+            this.specialRequests = specialRequests;
+        }
+
+        public Long getMenuItemId() { return menuItemId; }
+        public void setMenuItemId(Long menuItemId) { this.menuItemId = menuItemId; }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+        public String getSpecialRequests() { return specialRequests; }
+        public void setSpecialRequests(String specialRequests) { this.specialRequests = specialRequests; }
+    }
+}
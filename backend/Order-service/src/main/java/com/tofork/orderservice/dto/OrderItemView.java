@@ -0,0 +1,46 @@
+package com.tofork.orderservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Riga d'ordine in sola lettura, caricata con una proiezione (nessuna entità gestita).
+ */
+public class OrderItemView {
+    private final Long orderId;
+    private final Long id;
+    private final Long menuItemId;
+    private final String name;
+    private final Double unitPrice;
+    private final Integer quantity;
+    private final Double subtotal;
+    private final String specialRequests;
+
+    public OrderItemView(Long orderId, Long id, Long menuItemId, String name, Double unitPrice,
+                         Integer quantity, Double subtotal, String specialRequests) {
+        this.orderId = orderId;
+        this.id = id;
+        this.menuItemId = menuItemId;
+        this.name = name;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+        this.subtotal = subtotal;
+        this.specialRequests = specialRequests;
+    }
+
+    @JsonIgnore
+    public Long getOrderId() { return orderId; }
+
+    public Long getId() { return id; }
+
+    public Long getMenuItemId() { return menuItemId; }
+
+    public String getName() { return name; }
+
+    public Double getUnitPrice() { return unitPrice; }
+
+    public Integer getQuantity() { return quantity; }
+
+    public Double getSubtotal() { return subtotal; }
+
+    public String getSpecialRequests() { return specialRequests; }
+}
@@ -0,0 +1,29 @@
+package com.tofork.orderservice.dto;
+
+import java.util.List;
+
+/**
+ * Pagina di risultati con paginazione keyset (created_at, id).
+ * nextCursor è opaco per il client: va ripassato così com'è per la pagina successiva.
+ */
+public class OrderPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public OrderPage(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
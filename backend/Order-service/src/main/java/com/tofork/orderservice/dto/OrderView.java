@@ -0,0 +1,75 @@
+package com.tofork.orderservice.dto;
+
+import com.tofork.orderservice.model.Order;
+import com.tofork.orderservice.model.OrderStatus;
+import com.tofork.orderservice.model.OrderType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ordine per le liste: stessi campi JSON dell'entità Order, ma con i piatti già caricati,
+ * così la serializzazione non scatena lazy loading.
+ */
+public class OrderView {
+    private final Long id;
+    private final Long bookingId;
+    private final Long restaurantId;
+    private final Long userId;
+    private final OrderType orderType;
+    private final OrderStatus status;
+    private final Double totalAmount;
+    private final boolean paid;
+    private final String paymentId;
+    private final LocalDateTime createdAt;
+    // true se letto dall'archivio degli ordini chiusi
+    private final boolean archived;
+    private final List<OrderItemView> items;
+
+    public OrderView(Order order, List<OrderItemView> items) {
+        this(order.getId(), order.getBookingId(), order.getRestaurantId(), order.getUserId(), order.getOrderType(),
+                order.getStatus(), order.getTotalAmount(), order.isPaid(), order.getPaymentId(), order.getCreatedAt(),
+                false, items);
+    }
+
+    public OrderView(Long id, Long bookingId, Long restaurantId, Long userId, OrderType orderType, OrderStatus status,
+                     Double totalAmount, boolean paid, String paymentId, LocalDateTime createdAt, boolean archived,
+                     List<OrderItemView> items) {
+        this.id = id;
+        this.bookingId = bookingId;
+        this.restaurantId = restaurantId;
+        this.userId = userId;
+        this.orderType = orderType;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.paid = paid;
+        this.paymentId = paymentId;
+        this.createdAt = createdAt;
+        this.archived = archived;
+        this.items = items;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getBookingId() { return bookingId; }
+
+    public Long getRestaurantId() { return restaurantId; }
+
+    public Long getUserId() { return userId; }
+
+    public OrderType getOrderType() { return orderType; }
+
+    public OrderStatus getStatus() { return status; }
+
+    public Double getTotalAmount() { return totalAmount; }
+
+    public boolean isPaid() { return paid; }
+
+    public String getPaymentId() { return paymentId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public boolean isArchived() { return archived; }
+
+    public List<OrderItemView> getItems() { return items; }
+}
@@ -0,0 +1,19 @@
+package com.tofork.orderservice.dto;
+
+/**
+ * Messaggio di Restaurant-service: un ristorante è stato creato, modificato o eliminato.
+ */
+public class RestaurantChangedMessage {
+    private Long restaurantId;
+    private Long ownerId;
+    private boolean deleted;
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public Long getOwnerId() { return ownerId; }
+    public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+}
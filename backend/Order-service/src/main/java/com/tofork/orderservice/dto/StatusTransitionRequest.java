@@ -0,0 +1,23 @@
+package com.tofork.orderservice.dto;
+
+/**
+ * Singola transizione richiesta dalla cucina. expectedStatus è facoltativo:
+ * se assente vale qualunque stato da cui la transizione è ammessa.
+ */
+public class StatusTransitionRequest {
+    private Long orderId;
+    private String status;
+    private String expectedStatus;
+
+    public StatusTransitionRequest() {}
+
+    // Getters and Setters
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getExpectedStatus() { return expectedStatus; }
+    public void setExpectedStatus(String expectedStatus) { this.expectedStatus = expectedStatus; }
+}
@@ -0,0 +1,26 @@
+package com.tofork.orderservice.dto;
+
+import com.tofork.orderservice.model.Order;
+
+import java.util.List;
+
+/**
+ * Esito di un aggiornamento di stato massivo: ordini aggiornati e id in conflitto
+ * (non trovati, di un altro ristorante o già passati a un altro stato).
+ */
+public class StatusTransitionResult {
+    private List<Order> updated;
+    private List<Long> conflicts;
+
+    public StatusTransitionResult(List<Order> updated, List<Long> conflicts) {
+        this.updated = updated;
+        this.conflicts = conflicts;
+    }
+
+    // Getters and Setters
+    public List<Order> getUpdated() { return updated; }
+    public void setUpdated(List<Order> updated) { this.updated = updated; }
+
+    public List<Long> getConflicts() { return conflicts; }
+    public void setConflicts(List<Long> conflicts) { this.conflicts = conflicts; }
+}
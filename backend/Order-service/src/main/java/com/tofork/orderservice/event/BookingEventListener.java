@@ -0,0 +1,25 @@
+package com.tofork.orderservice.event;
+
+import com.tofork.orderservice.config.RabbitConfig;
+import com.tofork.orderservice.dto.BookingEventMessage;
+import com.tofork.orderservice.service.BookingReplicaService;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consuma gli eventi di Booking-service e aggiorna la replica locale.
+ */
+@Component
+public class BookingEventListener {
+
+    private final BookingReplicaService bookingReplicaService;
+
+    public BookingEventListener(BookingReplicaService bookingReplicaService) {
+        this.bookingReplicaService = bookingReplicaService;
+    }
+
+    @RabbitListener(queues = RabbitConfig.BOOKING_REPLICA_QUEUE)
+    public void onBookingChanged(BookingEventMessage message) {
+        bookingReplicaService.apply(message);
+    }
+}
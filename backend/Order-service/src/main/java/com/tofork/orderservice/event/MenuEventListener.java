@@ -0,0 +1,27 @@
+package com.tofork.orderservice.event;
+
+import com.tofork.orderservice.config.RabbitConfig;
+import com.tofork.orderservice.dto.MenuChangedMessage;
+import com.tofork.orderservice.service.MenuPriceCache;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalida il listino in cache quando Restaurant-service modifica un menu.
+ */
+@Component
+public class MenuEventListener {
+
+    private final MenuPriceCache menuPriceCache;
+
+    public MenuEventListener(MenuPriceCache menuPriceCache) {
+        this.menuPriceCache = menuPriceCache;
+    }
+
+    @RabbitListener(queues = "#{menuChangesQueue.name}")
+    public void onMenuChanged(MenuChangedMessage message) {
+        if (message.getRestaurantId() != null) {
+            menuPriceCache.invalidate(message.getRestaurantId());
+        }
+    }
+}
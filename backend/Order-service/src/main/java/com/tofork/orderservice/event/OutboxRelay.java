@@ -0,0 +1,85 @@
+package com.tofork.orderservice.event;
+
+import com.tofork.orderservice.model.OutboxEvent;
+import com.tofork.orderservice.repository.OutboxRepository;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Pubblica su RabbitMQ gli eventi dell'outbox, a blocchi.
+ * Ogni blocco viene bloccato con SKIP LOCKED, inviato, e cancellato solo dopo le
+ * conferme del broker (publisher confirms): in caso di errore la transazione viene
+ * annullata e il blocco ritentato al giro successivo. La consegna è quindi at-least-once.
+ */
+@Component
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.rabbitmq.exchange:tofork.exchange}")
+    private String exchangeName;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    public OutboxRelay(OutboxRepository outboxRepository, RabbitTemplate rabbitTemplate,
+                       TransactionTemplate transactionTemplate) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            Integer published;
+            do {
+                published = transactionTemplate.execute(status -> publishBatch());
+            } while (published != null && published == batchSize);
+        } catch (Exception e) {
+            System.err.println("Errore pubblicazione outbox ordini: " + e.getMessage());
+        }
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Tutti i messaggi sullo stesso canale, poi un'unica attesa per le conferme
+        rabbitTemplate.invoke(operations -> {
+            for (OutboxEvent event : batch) {
+                operations.send(exchangeName, event.getRoutingKey(), toMessage(event));
+            }
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+
+        outboxRepository.deleteAllInBatch(batch);
+        return batch.size();
+    }
+
+    private Message toMessage(OutboxEvent event) {
+        return MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(String.valueOf(event.getId()))
+                .setHeader("eventType", event.getEventType())
+                .build();
+    }
+}
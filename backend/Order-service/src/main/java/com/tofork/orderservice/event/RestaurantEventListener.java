@@ -0,0 +1,24 @@
+package com.tofork.orderservice.event;
+
+import com.tofork.orderservice.dto.RestaurantChangedMessage;
+import com.tofork.orderservice.service.RestaurantDirectory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalida la cache owner -> ristoranti quando Restaurant-service crea, modifica o elimina un ristorante.
+ */
+@Component
+public class RestaurantEventListener {
+
+    private final RestaurantDirectory restaurantDirectory;
+
+    public RestaurantEventListener(RestaurantDirectory restaurantDirectory) {
+        this.restaurantDirectory = restaurantDirectory;
+    }
+
+    @RabbitListener(queues = "#{restaurantChangesQueue.name}")
+    public void onRestaurantChanged(RestaurantChangedMessage message) {
+        restaurantDirectory.invalidate(message.getOwnerId(), message.getRestaurantId());
+    }
+}
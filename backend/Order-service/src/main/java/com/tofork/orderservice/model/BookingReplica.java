@@ -0,0 +1,53 @@
+package com.tofork.orderservice.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Copia locale, in sola lettura, dello stato delle prenotazioni di Booking-service.
+ * Alimentata dagli eventi RabbitMQ: contiene solo i campi che servono a validare un ordine.
+ */
+@Entity
+@Table(name = "booking_replica")
+public class BookingReplica {
+
+    @Id
+    private Long bookingId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long restaurantId;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    private LocalDateTime updatedAt;
+
+    public BookingReplica() {}
+
+    public BookingReplica(Long bookingId, Long userId, Long restaurantId, String status, LocalDateTime updatedAt) {
+        this.bookingId = bookingId;
+        this.userId = userId;
+        this.restaurantId = restaurantId;
+        this.status = status;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
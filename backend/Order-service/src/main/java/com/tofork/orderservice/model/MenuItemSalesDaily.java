@@ -0,0 +1,41 @@
+package com.tofork.orderservice.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Venduto giornaliero per piatto e ristorante.
+ * Aggiornato in modo incrementale quando un ordine viene completato o pagato,
+ * così le statistiche non devono aggregare tutta la tabella order_items.
+ */
+@Entity
+@Table(name = "menu_item_sales_daily", indexes = {
+        @Index(name = "idx_sales_menu_item", columnList = "menu_item_id")
+})
+public class MenuItemSalesDaily {
+
+    @EmbeddedId
+    private MenuItemSalesKey id;
+
+    private String name;
+
+    @Column(nullable = false)
+    private Long quantity = 0L;
+
+    @Column(nullable = false)
+    private Double revenue = 0.0;
+
+    public MenuItemSalesDaily() {}
+
+    // Getters and Setters
+    public MenuItemSalesKey getId() { return id; }
+    public void setId(MenuItemSalesKey id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Long getQuantity() { return quantity; }
+    public void setQuantity(Long quantity) { this.quantity = quantity; }
+
+    public Double getRevenue() { return revenue; }
+    public void setRevenue(Double revenue) { this.revenue = revenue; }
+}
@@ -0,0 +1,48 @@
+package com.tofork.orderservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Embeddable
+public class MenuItemSalesKey implements Serializable {
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    @Column(name = "menu_item_id", nullable = false)
+    private Long menuItemId;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    public MenuItemSalesKey() {}
+
+    public MenuItemSalesKey(Long restaurantId, Long menuItemId, LocalDate salesDate) {
+        this.restaurantId = restaurantId;
+        this.menuItemId = menuItemId;
+        this.salesDate = salesDate;
+    }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public Long getMenuItemId() { return menuItemId; }
+    public LocalDate getSalesDate() { return salesDate; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MenuItemSalesKey)) return false;
+        MenuItemSalesKey that = (MenuItemSalesKey) o;
+        return Objects.equals(restaurantId, that.restaurantId)
+                && Objects.equals(menuItemId, that.menuItemId)
+                && Objects.equals(salesDate, that.salesDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(restaurantId, menuItemId, salesDate);
+    }
+}
@@ -1,5 +1,6 @@
 package com.tofork.orderservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -7,11 +8,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Storico per cliente/ristorante e coda cucina per stato, in ordine keyset (created_at, id)
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at DESC, id DESC"),
+        @Index(name = "idx_orders_restaurant_created", columnList = "restaurant_id, created_at DESC, id DESC"),
+        @Index(name = "idx_orders_restaurant_status_created", columnList = "restaurant_id, status, created_at, id")
+})
 public class Order {
 
+    // Sequence con allocazione a blocchi: a differenza di IDENTITY permette
+    // a Hibernate di raggruppare le INSERT in batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = true)
@@ -35,6 +44,10 @@ public class Order {
 
     private String paymentId;
 
+    // true se l'ordine è già conteggiato in menu_item_sales_daily
+    @Column(columnDefinition = "boolean not null default false")
+    private boolean salesRecorded = false;
+
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -72,6 +85,10 @@ public class Order {
     public String getPaymentId() { return paymentId; }
     public void setPaymentId(String paymentId) { this.paymentId = paymentId; }
 
+    @JsonIgnore
+    public boolean isSalesRecorded() { return salesRecorded; }
+    public void setSalesRecorded(boolean salesRecorded) { this.salesRecorded = salesRecorded; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -82,4 +99,9 @@ public class Order {
         items.add(item);
         item.setOrder(this);
     }
+
+    public void removeItem(OrderItem item) {
+        items.remove(item);
+        item.setOrder(null);
+    }
 }
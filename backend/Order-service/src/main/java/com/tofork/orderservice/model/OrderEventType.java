@@ -0,0 +1,8 @@
+package com.tofork.orderservice.model;
+
+public enum OrderEventType {
+    CREATED,
+    UPDATED,
+    STATUS_CHANGED,
+    PAID
+}
@@ -1,8 +1,41 @@
 package com.tofork.orderservice.model;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     PREPARING,
     COMPLETED,
-    CANCELLED
+    CANCELLED;
+
+    // Transizioni ammesse: stato corrente -> stati raggiungibili
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(PREPARING, CANCELLED));
+        TRANSITIONS.put(PREPARING, EnumSet.of(COMPLETED, CANCELLED));
+        // Cancellazione lato ristoratore anche dopo il completamento (storno del venduto)
+        TRANSITIONS.put(COMPLETED, EnumSet.of(CANCELLED));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+
+    /**
+     * Stati da cui è possibile raggiungere target.
+     */
+    public static Set<OrderStatus> sourcesOf(OrderStatus target) {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        for (Map.Entry<OrderStatus, Set<OrderStatus>> entry : TRANSITIONS.entrySet()) {
+            if (entry.getValue().contains(target)) {
+                sources.add(entry.getKey());
+            }
+        }
+        return sources;
+    }
 }
@@ -0,0 +1,42 @@
+package com.tofork.orderservice.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Ticket monouso per aprire lo stream SSE della cucina.
+ * EventSource non può inviare l'header Authorization: al posto del JWT nell'URL (che finirebbe
+ * nei log di proxy e gateway) il client passa questo ticket, valido pochi secondi e una sola volta.
+ */
+@Entity
+@Table(name = "stream_tickets")
+public class StreamTicket {
+
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(nullable = false)
+    private Long restaurantId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public StreamTicket() {}
+
+    public StreamTicket(String id, Long restaurantId, LocalDateTime expiresAt) {
+        this.id = id;
+        this.restaurantId = restaurantId;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
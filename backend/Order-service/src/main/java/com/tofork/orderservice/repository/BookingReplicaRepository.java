@@ -0,0 +1,9 @@
+package com.tofork.orderservice.repository;
+
+import com.tofork.orderservice.model.BookingReplica;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BookingReplicaRepository extends JpaRepository<BookingReplica, Long> {
+}
@@ -0,0 +1,53 @@
+package com.tofork.orderservice.repository;
+
+import com.tofork.orderservice.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Prenota la chiave: riesce (1) se la chiave è nuova o il record precedente è scaduto
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (id, request_hash, status, expires_at) " +
+            "VALUES (:id, :requestHash, 'IN_PROGRESS', :lockUntil) " +
+            "ON CONFLICT (id) DO UPDATE SET request_hash = EXCLUDED.request_hash, status = 'IN_PROGRESS', " +
+            "response_status = NULL, response_body = NULL, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < :now", nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("requestHash") String requestHash,
+              @Param("lockUntil") LocalDateTime lockUntil,
+              @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseStatus = :responseStatus, " +
+            "r.responseBody = :responseBody, r.expiresAt = :expiresAt WHERE r.id = :id")
+    int complete(@Param("id") String id,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Proroga il lease di una chiave ancora in lavorazione
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.expiresAt = :lockUntil WHERE r.id = :id AND r.status = 'IN_PROGRESS'")
+    int renew(@Param("id") String id, @Param("lockUntil") LocalDateTime lockUntil);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = 'IN_PROGRESS'")
+    int release(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,52 @@
+package com.tofork.orderservice.repository;
+
+import com.tofork.orderservice.model.MenuItemSalesDaily;
+import com.tofork.orderservice.model.MenuItemSalesKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MenuItemSalesRepository extends JpaRepository<MenuItemSalesDaily, MenuItemSalesKey> {
+
+    // Incremento atomico della riga giornaliera (delta negativi per gli annullamenti)
+    @Modifying
+    @Query(value = "INSERT INTO menu_item_sales_daily (restaurant_id, menu_item_id, sales_date, name, quantity, revenue) " +
+            "VALUES (:restaurantId, :menuItemId, :salesDate, :name, :quantity, :revenue) " +
+            "ON CONFLICT (restaurant_id, menu_item_id, sales_date) DO UPDATE SET " +
+            "quantity = menu_item_sales_daily.quantity + EXCLUDED.quantity, " +
+            "revenue = menu_item_sales_daily.revenue + EXCLUDED.revenue, " +
+            "name = EXCLUDED.name", nativeQuery = true)
+    void increment(@Param("restaurantId") Long restaurantId,
+                   @Param("menuItemId") Long menuItemId,
+                   @Param("salesDate") LocalDate salesDate,
+                   @Param("name") String name,
+                   @Param("quantity") long quantity,
+                   @Param("revenue") double revenue);
+
+    // Piatti più venduti di un ristorante nel periodo: [name, menuItemId, totalQuantity, totalRevenue]
+    @Query("SELECT MAX(s.name), s.id.menuItemId, SUM(s.quantity) as totalQuantity, SUM(s.revenue) " +
+            "FROM MenuItemSalesDaily s WHERE s.id.restaurantId = :restaurantId " +
+            "AND s.id.salesDate BETWEEN :from AND :to " +
+            "GROUP BY s.id.menuItemId ORDER BY totalQuantity DESC")
+    List<Object[]> findMostPopularItemsByRestaurant(@Param("restaurantId") Long restaurantId,
+                                                    @Param("from") LocalDate from,
+                                                    @Param("to") LocalDate to);
+
+    // Totali di un piatto limitati ai ristoranti indicati (quelli dell'owner che chiede)
+    @Query("SELECT SUM(s.quantity) FROM MenuItemSalesDaily s " +
+            "WHERE s.id.menuItemId = :menuItemId AND s.id.restaurantId IN :restaurantIds")
+    Long getTotalQuantitySoldByFoodItem(@Param("menuItemId") Long menuItemId,
+                                        @Param("restaurantIds") Collection<Long> restaurantIds);
+
+    @Query("SELECT SUM(s.revenue) FROM MenuItemSalesDaily s " +
+            "WHERE s.id.menuItemId = :menuItemId AND s.id.restaurantId IN :restaurantIds")
+    Double getTotalRevenueByFoodItem(@Param("menuItemId") Long menuItemId,
+                                     @Param("restaurantIds") Collection<Long> restaurantIds);
+}
@@ -2,20 +2,87 @@ package com.tofork.orderservice.repository;
 
 import com.tofork.orderservice.model.Order;
 import com.tofork.orderservice.model.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
-    // Find User Orders
-    List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
+    // Find User Orders (al massimo una pagina: lo storico cresce senza limiti)
+    List<Order> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
 
     // Find Restaurant Orders
-    List<Order> findByRestaurantIdOrderByCreatedAtDesc(Long restaurantId);
+    List<Order> findByRestaurantIdOrderByCreatedAtDesc(Long restaurantId, Pageable pageable);
     
     // Find Restaurant Orders by Status
-    List<Order> findByRestaurantIdAndStatusOrderByCreatedAtAsc(Long restaurantId, OrderStatus status);
+    List<Order> findByRestaurantIdAndStatusOrderByCreatedAtAsc(Long restaurantId, OrderStatus status, Pageable pageable);
+
+    // --- Paginazione keyset su (created_at, id), servita dagli indici compositi di Order ---
+
+    List<Order> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findUserOrdersBefore(@Param("userId") Long userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
+    List<Order> findByRestaurantIdOrderByCreatedAtDescIdDesc(Long restaurantId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.restaurantId = :restaurantId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findRestaurantOrdersBefore(@Param("restaurantId") Long restaurantId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+
+    List<Order> findByRestaurantIdAndStatusOrderByCreatedAtDescIdDesc(Long restaurantId, OrderStatus status, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.restaurantId = :restaurantId AND o.status = :status " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findRestaurantOrdersByStatusBefore(@Param("restaurantId") Long restaurantId,
+                                                   @Param("status") OrderStatus status,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
+
+    // --- Scritture mirate: nessun read-modify-write dell'intera riga ---
+
+    // Compare-and-set dello stato: aggiorna solo gli ordini ancora in uno degli stati attesi
+    // e restituisce gli id effettivamente modificati. Va chiamato dentro la transazione del servizio
+    @Query(value = "UPDATE orders SET status = :newStatus " +
+            "WHERE id IN (:ids) AND restaurant_id = :restaurantId AND status IN (:expected) " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> transitionStatus(@Param("ids") Collection<Long> ids,
+                                @Param("restaurantId") Long restaurantId,
+                                @Param("expected") Collection<String> expected,
+                                @Param("newStatus") String newStatus);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.paid = true, o.paymentId = :paymentId WHERE o.id = :id AND o.paid = false")
+    int markPaid(@Param("id") Long id, @Param("paymentId") String paymentId);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.salesRecorded = :recorded WHERE o.id = :id AND o.salesRecorded <> :recorded")
+    int updateSalesRecorded(@Param("id") Long id, @Param("recorded") boolean recorded);
+
+    // Lock di riga per le modifiche dei piatti, così una transizione concorrente attende il commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
 }
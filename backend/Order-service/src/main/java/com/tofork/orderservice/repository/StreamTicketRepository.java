@@ -0,0 +1,27 @@
+package com.tofork.orderservice.repository;
+
+import com.tofork.orderservice.model.StreamTicket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StreamTicketRepository extends JpaRepository<StreamTicket, String> {
+
+    // Consuma il ticket: una sola richiesta, su qualunque replica, riceve il ristorante
+    @Transactional
+    @Query(value = "DELETE FROM stream_tickets WHERE id = :id AND expires_at > :now RETURNING restaurant_id",
+            nativeQuery = true)
+    List<Long> consume(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StreamTicket t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,130 @@
+package com.tofork.orderservice.service;
+
+import com.tofork.orderservice.dto.BookingEventMessage;
+import com.tofork.orderservice.model.BookingReplica;
+import com.tofork.orderservice.repository.BookingReplicaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Validazione delle prenotazioni per gli ordini DINE_IN.
+ * Legge dalla replica locale alimentata dagli eventi di Booking-service; la chiamata
+ * sincrona resta solo come fallback quando la prenotazione non è ancora replicata,
+ * e si fa prima di aprire la transazione dell'ordine.
+ */
+@Service
+public class BookingReplicaService {
+
+    private final BookingReplicaRepository replicaRepository;
+    private final RestTemplate restTemplate;
+
+    @Value("${booking.service.url:http://tofork-booking-service:8085}")
+    private String bookingServiceUrl;
+
+    public BookingReplicaService(BookingReplicaRepository replicaRepository, RestTemplate restTemplate) {
+        this.replicaRepository = replicaRepository;
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Applica un evento alla replica. Gli eventi fuori ordine (più vecchi
+     * della versione già salvata) vengono ignorati.
+     */
+    @Transactional
+    public void apply(BookingEventMessage message) {
+        if (message.getBookingId() == null) return;
+
+        Optional<BookingReplica> existing = replicaRepository.findById(message.getBookingId());
+        if (existing.isPresent() && existing.get().getUpdatedAt() != null && message.getUpdatedAt() != null
+                && existing.get().getUpdatedAt().isAfter(message.getUpdatedAt())) {
+            return;
+        }
+
+        replicaRepository.save(new BookingReplica(
+                message.getBookingId(),
+                message.getUserId(),
+                message.getRestaurantId(),
+                message.getStatus(),
+                message.getUpdatedAt()));
+    }
+
+    /**
+     * Porta nella replica una prenotazione che gli eventi non hanno ancora consegnato, leggendola da Booking-service.
+     * Va chiamato fuori da ogni transazione: la chiamata è bloccante e la replica si salva in una transazione propria,
+     * che resta valida anche se poi l'ordine viene rifiutato.
+     */
+    public void ensureReplicated(Long bookingId, String authToken) throws Exception {
+        if (bookingId == null || replicaRepository.existsById(bookingId)) {
+            return;
+        }
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", authToken.startsWith("Bearer ") ? authToken : "Bearer " + authToken);
+
+            ResponseEntity<Map> response = restTemplate.exchange(
+                bookingServiceUrl + "/api/bookings/" + bookingId,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                Map.class
+            );
+
+            Map body = response.getBody();
+            if (body == null || !Boolean.TRUE.equals(body.get("success"))) {
+                throw new Exception("Prenotazione non trovata");
+            }
+
+            Map data = (Map) body.get("data");
+
+            Long bUserId = ((Number) data.get("userId")).longValue();
+            Long bRestId = ((Number) data.get("restaurantId")).longValue();
+            String status = (String) data.get("status");
+
+            // Popoliamo la replica: le prossime verifiche saranno locali. La versione è l'updatedAt
+            // della prenotazione, non l'ora locale: un evento più recente già in coda deve poter
+            // sovrascrivere questa lettura (e una lettura più vecchia non sovrascrive la replica)
+            BookingEventMessage snapshot = new BookingEventMessage();
+            snapshot.setBookingId(bookingId);
+            snapshot.setUserId(bUserId);
+            snapshot.setRestaurantId(bRestId);
+            snapshot.setStatus(status);
+            snapshot.setUpdatedAt(parseUpdatedAt(data.get("updatedAt")));
+            apply(snapshot);
+        } catch (Exception e) {
+            throw new Exception("Check prenotazione fallito: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Verifica sulla sola replica locale: nessuna chiamata remota, si può usare dentro la transazione dell'ordine.
+     */
+    public void verifyBooking(Long bookingId, Long userId, Long restaurantId) throws Exception {
+        BookingReplica booking = replicaRepository.findById(bookingId)
+                .orElseThrow(() -> new Exception("Check prenotazione fallito: Prenotazione non trovata"));
+        if (!booking.getUserId().equals(userId)) throw new Exception("Check prenotazione fallito: Prenotazione non tua");
+        if (!booking.getRestaurantId().equals(restaurantId)) throw new Exception("Check prenotazione fallito: Ristorante errato");
+        if (!"CONFIRMED".equals(booking.getStatus())) throw new Exception("Check prenotazione fallito: Prenotazione non CONFERMATA");
+    }
+
+    // Booking-service serializza LocalDateTime in ISO-8601; se manca la versione resta null
+    private static LocalDateTime parseUpdatedAt(Object value) {
+        if (value instanceof String text) {
+            try {
+                return LocalDateTime.parse(text);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,232 @@
+package com.tofork.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tofork.orderservice.dto.ApiResponse;
+import com.tofork.orderservice.model.IdempotencyRecord;
+import com.tofork.orderservice.repository.IdempotencyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Gestione dell'header Idempotency-Key.
+ * La prima richiesta prenota la chiave su DB (condiviso tra le repliche) ed esegue il lavoro;
+ * le ripetizioni ricevono la risposta memorizzata. I duplicati concorrenti sulla stessa istanza
+ * attendono la prima richiesta in memoria, quelli su altre istanze interrogano il record.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    @Autowired
+    private IdempotencyRepository idempotencyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.lock-seconds:30}")
+    private long lockSeconds;
+
+    @Value("${app.idempotency.wait-ms:10000}")
+    private long waitMs;
+
+    // Richieste in corso su questa istanza, per chiave
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    // Rinnova il lease mentre il lavoro è in corso: se scadesse (es. chiamata lenta a un servizio
+    // esterno) un'altra replica potrebbe prenotare la chiave ed eseguire il lavoro una seconda volta
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "idempotency-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Esegue action al più una volta per (scope, key). Senza chiave la richiesta viene eseguita normalmente.
+     * Vengono memorizzate solo le risposte andate a buon fine: dopo un errore il client può riprovare.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Idempotency-Key troppo lunga"));
+        }
+
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+        long deadline = System.currentTimeMillis() + waitMs;
+
+        while (System.currentTimeMillis() < deadline) {
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(id, mine);
+
+            if (running != null) {
+                // Stessa chiave già in lavorazione su questa istanza: si attende il suo esito
+                try {
+                    StoredResponse stored = running.get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    if (stored != null) {
+                        return replay(stored, requestHash);
+                    }
+                } catch (TimeoutException e) {
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    // la prima richiesta è fallita: si riprova
+                }
+                continue;
+            }
+
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                if (idempotencyRepository.claim(id, requestHash, now.plusSeconds(lockSeconds), now) == 1) {
+                    return run(id, requestHash, action, mine);
+                }
+
+                Optional<StoredResponse> completed = findCompleted(id);
+                if (completed.isPresent()) {
+                    mine.complete(completed.get());
+                    return replay(completed.get(), requestHash);
+                }
+            } finally {
+                inFlight.remove(id, mine);
+                mine.complete(null);
+            }
+
+            // Chiave in lavorazione su un'altra istanza
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("Richiesta con la stessa Idempotency-Key ancora in elaborazione"));
+    }
+
+    private ResponseEntity<?> run(String id, String requestHash, Supplier<ResponseEntity<?>> action,
+                                  CompletableFuture<StoredResponse> mine) {
+        long renewEveryMs = Math.max(1000, lockSeconds * 1000 / 3);
+        ScheduledFuture<?> renewal = leaseRenewer.scheduleAtFixedRate(
+                () -> renewLease(id), renewEveryMs, renewEveryMs, TimeUnit.MILLISECONDS);
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyRepository.release(id);
+            throw e;
+        } finally {
+            renewal.cancel(false);
+        }
+
+        StoredResponse stored = toStored(requestHash, response);
+        if (stored != null) {
+            idempotencyRepository.complete(id, stored.status, stored.body, LocalDateTime.now().plusHours(ttlHours));
+            mine.complete(stored);
+        } else {
+            idempotencyRepository.release(id);
+        }
+        return response;
+    }
+
+    private void renewLease(String id) {
+        try {
+            idempotencyRepository.renew(id, LocalDateTime.now().plusSeconds(lockSeconds));
+        } catch (Exception e) {
+            System.err.println("Rinnovo lease Idempotency-Key fallito: " + e.getMessage());
+        }
+    }
+
+    private Optional<StoredResponse> findCompleted(String id) {
+        return idempotencyRepository.findById(id)
+                .filter(r -> IdempotencyRecord.COMPLETED.equals(r.getStatus()))
+                .filter(r -> r.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(r -> new StoredResponse(r.getRequestHash(), r.getResponseStatus(), r.getResponseBody()));
+    }
+
+    private StoredResponse toStored(String requestHash, ResponseEntity<?> response) {
+        if (!response.getStatusCode().is2xxSuccessful()) return null;
+        if (response.getBody() instanceof ApiResponse<?> body && !body.isSuccess()) return null;
+        try {
+            return new StoredResponse(requestHash, response.getStatusCode().value(),
+                    objectMapper.writeValueAsString(response.getBody()));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            return ResponseEntity.unprocessableEntity()
+                    .body(ApiResponse.error("Idempotency-Key già usata per una richiesta diversa"));
+        }
+        return ResponseEntity.status(stored.status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", "true")
+                .body(stored.body);
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Impossibile calcolare l'hash della richiesta", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        idempotencyRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private static class StoredResponse {
+        final String requestHash;
+        final int status;
+        final String body;
+
+        StoredResponse(String requestHash, int status, String body) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.tofork.orderservice.service;
+
+import com.tofork.orderservice.dto.MenuPriceDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache locale dei prezzi del menu, per ristorante.
+ * Il listino di un ristorante viene caricato in blocco con una sola chiamata e invalidato
+ * dagli eventi "menu.changed"; il TTL è solo una rete di sicurezza.
+ * Ogni invalidazione incrementa la versione del ristorante: un caricamento partito prima
+ * dell'invalidazione non può quindi sovrascrivere la cache con prezzi vecchi.
+ */
+@Service
+public class MenuPriceCache {
+
+    private final RestTemplate restTemplate;
+
+    @Value("${restaurant.service.url:http://restaurant-service:8083}")
+    private String restaurantServiceUrl;
+
+    @Value("${app.menu-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final Map<Long, MenuSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public MenuPriceCache(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Prezzo corrente del piatto, o null se il piatto non appartiene al ristorante.
+     */
+    public MenuPriceDTO getPrice(Long restaurantId, Long menuItemId) throws Exception {
+        return getSnapshot(restaurantId).prices.get(menuItemId);
+    }
+
+    public void invalidate(Long restaurantId) {
+        versionOf(restaurantId).incrementAndGet();
+        snapshots.remove(restaurantId);
+    }
+
+    private MenuSnapshot getSnapshot(Long restaurantId) throws Exception {
+        MenuSnapshot snapshot = snapshots.get(restaurantId);
+        long version = versionOf(restaurantId).get();
+        if (snapshot != null && snapshot.version == version && !snapshot.isExpired()) {
+            return snapshot;
+        }
+
+        MenuSnapshot loaded = new MenuSnapshot(version, load(restaurantId),
+                System.currentTimeMillis() + ttlSeconds * 1000);
+        // Salviamo solo se nel frattempo non è arrivata un'invalidazione
+        if (versionOf(restaurantId).get() == version) {
+            snapshots.put(restaurantId, loaded);
+        }
+        return loaded;
+    }
+
+    private Map<Long, MenuPriceDTO> load(Long restaurantId) throws Exception {
+        List<MenuPriceDTO> prices;
+        try {
+            prices = restTemplate.exchange(
+                    restaurantServiceUrl + "/api/menu-items/restaurant/" + restaurantId + "/prices",
+                    HttpMethod.GET,
+                    null,
+                    new ParameterizedTypeReference<List<MenuPriceDTO>>() {}
+            ).getBody();
+        } catch (Exception e) {
+            throw new Exception("Listino prezzi non disponibile: " + e.getMessage());
+        }
+
+        Map<Long, MenuPriceDTO> byId = new HashMap<>();
+        if (prices != null) {
+            for (MenuPriceDTO price : prices) {
+                byId.put(price.getId(), price);
+            }
+        }
+        return byId;
+    }
+
+    private AtomicLong versionOf(Long restaurantId) {
+        return versions.computeIfAbsent(restaurantId, id -> new AtomicLong());
+    }
+
+    private static class MenuSnapshot {
+        final long version;
+        final Map<Long, MenuPriceDTO> prices;
+        final long expiresAt;
+
+        MenuSnapshot(long version, Map<Long, MenuPriceDTO> prices, long expiresAt) {
+            this.version = version;
+            this.prices = prices;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
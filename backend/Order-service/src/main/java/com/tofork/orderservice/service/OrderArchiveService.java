@@ -0,0 +1,205 @@
+package com.tofork.orderservice.service;
+
+import com.tofork.orderservice.dto.OrderItemView;
+import com.tofork.orderservice.dto.OrderView;
+import com.tofork.orderservice.model.OrderStatus;
+import com.tofork.orderservice.model.OrderType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archivio degli ordini chiusi più vecchi di app.archive.older-than-days: COMPLETED e pagati,
+ * oppure CANCELLED. Un ordine completato ma non pagato resta nella tabella attiva finché il
+ * pagamento non viene chiuso (il pagamento aggiorna solo la tabella orders).
+ * Gli ordini vengono spostati in orders_archive / order_items_archive, partizionate per mese
+ * di creazione (vedi data.sql), così le tabelle e gli indici usati dalla cucina restano piccoli.
+ * Le tabelle d'archivio non sono entità JPA: Hibernate le creerebbe non partizionate.
+ */
+@Service
+public class OrderArchiveService {
+
+    // Chiave dell'advisory lock: una sola replica alla volta sposta ordini e crea partizioni
+    private static final long ARCHIVE_LOCK_KEY = 0x0A5C41BEL;
+
+    private static final String ARCHIVE_COLUMNS =
+            "id, booking_id, restaurant_id, user_id, order_type, status, total_amount, paid, payment_id, created_at";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.archive.older-than-days:90}")
+    private int olderThanDays;
+
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize;
+
+    public OrderArchiveService(NamedParameterJdbcTemplate jdbc, TransactionTemplate transactionTemplate) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void archiveClosedOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(olderThanDays);
+        try {
+            Integer moved;
+            do {
+                moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            } while (moved != null && moved == batchSize);
+        } catch (Exception e) {
+            System.err.println("Errore archiviazione ordini: " + e.getMessage());
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        Boolean locked = jdbc.getJdbcTemplate().queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ARCHIVE_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return 0;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", cutoff)
+                .addValue("limit", batchSize);
+        List<Long> ids = jdbc.queryForList(
+                "SELECT id FROM orders WHERE ((status = 'COMPLETED' AND paid = true) OR status = 'CANCELLED') " +
+                "AND created_at < :cutoff " +
+                "ORDER BY created_at LIMIT :limit FOR UPDATE", params, Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        params.addValue("ids", ids);
+
+        List<LocalDate> months = jdbc.queryForList(
+                "SELECT DISTINCT CAST(date_trunc('month', created_at) AS date) FROM orders WHERE id IN (:ids)",
+                params, LocalDate.class);
+        for (LocalDate month : months) {
+            ensurePartitions(month);
+        }
+
+        // Prima i piatti (FK verso orders), poi gli ordini: DELETE e INSERT nello stesso statement
+        jdbc.update("WITH moved AS (DELETE FROM order_items WHERE order_id IN (:ids) " +
+                "RETURNING id, order_id, menu_item_id, name, unit_price, quantity, subtotal, special_requests) " +
+                "INSERT INTO order_items_archive (id, order_id, order_created_at, menu_item_id, name, unit_price, " +
+                "quantity, subtotal, special_requests) " +
+                "SELECT m.id, m.order_id, o.created_at, m.menu_item_id, m.name, m.unit_price, m.quantity, " +
+                "m.subtotal, m.special_requests FROM moved m JOIN orders o ON o.id = m.order_id", params);
+
+        jdbc.update("WITH moved AS (DELETE FROM orders WHERE id IN (:ids) " +
+                "RETURNING " + ARCHIVE_COLUMNS + ", sales_recorded) " +
+                "INSERT INTO orders_archive (" + ARCHIVE_COLUMNS + ", sales_recorded) " +
+                "SELECT * FROM moved", params);
+
+        return ids.size();
+    }
+
+    private void ensurePartitions(LocalDate month) {
+        String suffix = String.format("y%04dm%02d", month.getYear(), month.getMonthValue());
+        String range = "FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')";
+        jdbc.getJdbcTemplate().execute(
+                "CREATE TABLE IF NOT EXISTS orders_archive_" + suffix + " PARTITION OF orders_archive " + range);
+        jdbc.getJdbcTemplate().execute(
+                "CREATE TABLE IF NOT EXISTS order_items_archive_" + suffix + " PARTITION OF order_items_archive " + range);
+    }
+
+    // --- Letture: stessa paginazione keyset (created_at, id) delle tabelle calde ---
+
+    public List<OrderView> findUserOrders(Long userId, LocalDateTime beforeCreatedAt, Long beforeId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        return findOrders("user_id = :userId", params, beforeCreatedAt, beforeId, limit);
+    }
+
+    public List<OrderView> findRestaurantOrders(Long restaurantId, OrderStatus status,
+                                                LocalDateTime beforeCreatedAt, Long beforeId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("restaurantId", restaurantId);
+        String where = "restaurant_id = :restaurantId";
+        if (status != null) {
+            where += " AND status = :status";
+            params.addValue("status", status.name());
+        }
+        return findOrders(where, params, beforeCreatedAt, beforeId, limit);
+    }
+
+    private List<OrderView> findOrders(String where, MapSqlParameterSource params,
+                                       LocalDateTime beforeCreatedAt, Long beforeId, int limit) {
+        String sql = "SELECT " + ARCHIVE_COLUMNS + " FROM orders_archive WHERE " + where;
+        if (beforeCreatedAt != null) {
+            sql += " AND (created_at < :createdAt OR (created_at = :createdAt AND id < :id))";
+            params.addValue("createdAt", beforeCreatedAt).addValue("id", beforeId);
+        }
+        sql += " ORDER BY created_at DESC, id DESC LIMIT :limit";
+        params.addValue("limit", limit);
+
+        List<ArchivedRow> rows = jdbc.query(sql, params, (rs, i) -> new ArchivedRow(rs));
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (ArchivedRow row : rows) ids.add(row.id);
+        Map<Long, List<OrderItemView>> itemsByOrder = new HashMap<>();
+        jdbc.query("SELECT order_id, id, menu_item_id, name, unit_price, quantity, subtotal, special_requests " +
+                        "FROM order_items_archive WHERE order_id IN (:ids) ORDER BY order_id, id",
+                new MapSqlParameterSource("ids", ids),
+                (RowCallbackHandler) rs -> {
+                    OrderItemView item = new OrderItemView(rs.getLong("order_id"), rs.getLong("id"),
+                            rs.getObject("menu_item_id", Long.class), rs.getString("name"),
+                            rs.getObject("unit_price", Double.class), rs.getObject("quantity", Integer.class),
+                            rs.getObject("subtotal", Double.class), rs.getString("special_requests"));
+                    itemsByOrder.computeIfAbsent(item.getOrderId(), k -> new ArrayList<>()).add(item);
+                });
+
+        List<OrderView> views = new ArrayList<>(rows.size());
+        for (ArchivedRow row : rows) {
+            views.add(row.toView(itemsByOrder.getOrDefault(row.id, List.of())));
+        }
+        return views;
+    }
+
+    private static class ArchivedRow {
+        final Long id;
+        final Long bookingId;
+        final Long restaurantId;
+        final Long userId;
+        final String orderType;
+        final String status;
+        final Double totalAmount;
+        final boolean paid;
+        final String paymentId;
+        final LocalDateTime createdAt;
+
+        ArchivedRow(ResultSet rs) throws SQLException {
+            this.id = rs.getLong("id");
+            this.bookingId = rs.getObject("booking_id", Long.class);
+            this.restaurantId = rs.getLong("restaurant_id");
+            this.userId = rs.getLong("user_id");
+            this.orderType = rs.getString("order_type");
+            this.status = rs.getString("status");
+            this.totalAmount = rs.getObject("total_amount", Double.class);
+            this.paid = rs.getBoolean("paid");
+            this.paymentId = rs.getString("payment_id");
+            this.createdAt = rs.getObject("created_at", LocalDateTime.class);
+        }
+
+        OrderView toView(List<OrderItemView> items) {
+            return new OrderView(id, bookingId, restaurantId, userId,
+                    orderType != null ? OrderType.valueOf(orderType) : null,
+                    status != null ? OrderStatus.valueOf(status) : null,
+                    totalAmount, paid, paymentId, createdAt, true, items);
+        }
+    }
+}
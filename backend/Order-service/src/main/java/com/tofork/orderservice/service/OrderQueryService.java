@@ -0,0 +1,59 @@
+package com.tofork.orderservice.service;
+
+import com.tofork.orderservice.dto.OrderItemView;
+import com.tofork.orderservice.dto.OrderPage;
+import com.tofork.orderservice.dto.OrderView;
+import com.tofork.orderservice.model.Order;
+import com.tofork.orderservice.repository.OrderItemRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Percorso di lettura delle liste ordini. I piatti di tutti gli ordini vengono caricati con
+ * una sola query (a blocchi di MAX_IDS_PER_QUERY id) invece che ordine per ordine durante la
+ * serializzazione: una lista costa due statement qualunque sia la dimensione della pagina.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderQueryService {
+
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private final OrderItemRepository orderItemRepository;
+
+    public OrderQueryService(OrderItemRepository orderItemRepository) {
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    public List<OrderView> toViews(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<OrderItemView>> itemsByOrder = new HashMap<>();
+        for (int from = 0; from < orders.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> ids = new ArrayList<>();
+            for (Order order : orders.subList(from, Math.min(from + MAX_IDS_PER_QUERY, orders.size()))) {
+                ids.add(order.getId());
+            }
+            for (OrderItemView item : orderItemRepository.findViewsByOrderIds(ids)) {
+                itemsByOrder.computeIfAbsent(item.getOrderId(), k -> new ArrayList<>()).add(item);
+            }
+        }
+
+        List<OrderView> views = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            views.add(new OrderView(order, itemsByOrder.getOrDefault(order.getId(), List.of())));
+        }
+        return views;
+    }
+
+    public OrderPage<OrderView> toViews(OrderPage<Order> page) {
+        return new OrderPage<>(toViews(page.getItems()), page.getNextCursor(), page.isHasMore());
+    }
+}
@@ -1,24 +1,52 @@
 package com.tofork.orderservice.service;
 
 import com.tofork.orderservice.dto.CreateOrderRequest;
+import com.tofork.orderservice.dto.OrderItemDTO;
+import com.tofork.orderservice.dto.OrderPage;
+import com.tofork.orderservice.dto.OrderView;
+import com.tofork.orderservice.dto.StatusTransitionRequest;
+import com.tofork.orderservice.dto.StatusTransitionResult;
 import com.tofork.orderservice.model.Order;
 import com.tofork.orderservice.model.OrderStatus;
 
 import java.util.List;
 
 public interface OrderService {
-    Order createOrder(CreateOrderRequest request, Long userId, String authToken) throws Exception;
+    // Le prenotazioni DINE_IN devono essere già nella replica (BookingReplicaService.ensureReplicated)
+    Order createOrder(CreateOrderRequest request, Long userId) throws Exception;
+
+    // Inserimento massivo (integrazione POS): tutti gli ordini in un'unica transazione
+    List<Order> createOrders(List<CreateOrderRequest> requests, Long defaultUserId) throws Exception;
 
     // NUOVO METODO AGGIUNTO
     Order updateOrder(Long orderId, CreateOrderRequest request, Long userId) throws Exception;
 
-    List<Order> getUserOrders(Long userId);
+    // Modifica di una singola riga (quantità / note); quantità 0 rimuove la riga
+    Order updateOrderItem(Long orderId, Long itemId, OrderItemDTO changes, Long userId) throws Exception;
+
+    // Versioni non paginate: solo i primi limit ordini (i più recenti; per stato i più vecchi, in ordine di arrivo)
+    List<Order> getUserOrders(Long userId, int limit);
+
+    List<Order> getRestaurantOrders(Long restaurantId, int limit);
+
+    List<Order> getRestaurantOrdersByStatus(Long restaurantId, OrderStatus status, int limit);
+
+    // Storico paginato (keyset): cursor null per la prima pagina
+    OrderPage<Order> getUserOrdersPage(Long userId, String cursor, int limit) throws Exception;
+
+    OrderPage<Order> getRestaurantOrdersPage(Long restaurantId, OrderStatus status, String cursor, int limit) throws Exception;
+
+    // Storico per le API: con includeArchived la pagina include anche gli ordini archiviati
+    OrderPage<OrderView> getUserOrderHistory(Long userId, String cursor, int limit, boolean includeArchived) throws Exception;
 
-    List<Order> getRestaurantOrders(Long restaurantId);
+    OrderPage<OrderView> getRestaurantOrderHistory(Long restaurantId, OrderStatus status, String cursor, int limit,
+                                                   boolean includeArchived) throws Exception;
 
-    List<Order> getRestaurantOrdersByStatus(Long restaurantId, OrderStatus status);
+    // Transizione compare-and-set: expectedStatus null = qualunque stato di partenza ammesso.
+    // Lancia StatusConflictException se l'ordine è cambiato nel frattempo
+    Order updateOrderStatus(Long orderId, OrderStatus newStatus, OrderStatus expectedStatus, Long restaurantId) throws Exception;
 
-    Order updateOrderStatus(Long orderId, OrderStatus newStatus, Long ownerId) throws Exception;
+    StatusTransitionResult updateOrderStatuses(List<StatusTransitionRequest> transitions, Long restaurantId) throws Exception;
 
     Order markOrderPaid(Long orderId, String paymentId) throws Exception;
 
@@ -1,23 +1,44 @@
 package com.tofork.orderservice.service;
 
 import com.tofork.orderservice.dto.CreateOrderRequest;
+import com.tofork.orderservice.dto.MenuPriceDTO;
 import com.tofork.orderservice.dto.OrderItemDTO;
+import com.tofork.orderservice.dto.OrderPage;
+import com.tofork.orderservice.dto.OrderView;
+import com.tofork.orderservice.dto.StatusTransitionRequest;
+import com.tofork.orderservice.dto.StatusTransitionResult;
 import com.tofork.orderservice.model.Order;
+import com.tofork.orderservice.model.OrderEventType;
 import com.tofork.orderservice.model.OrderItem;
 import com.tofork.orderservice.model.OrderStatus;
 import com.tofork.orderservice.model.OrderType;
 import com.tofork.orderservice.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -25,14 +46,54 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private OrderRepository orderRepository;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    // Internal service URL (docker network)
-    private final String BOOKING_SERVICE_URL = "http://tofork-booking-service:8085/api/bookings";
+    @Autowired
+    private BookingReplicaService bookingReplicaService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private MenuPriceCache menuPriceCache;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Override
+    @Transactional
+    public Order createOrder(CreateOrderRequest request, Long userId) throws Exception {
+        Order saved = orderRepository.save(buildOrder(request, userId));
+        publishEvent(OrderEventType.CREATED, saved);
+        return saved;
+    }
 
     @Override
     @Transactional
-    public Order createOrder(CreateOrderRequest request, Long userId, String authToken) throws Exception {
+    public List<Order> createOrders(List<CreateOrderRequest> requests, Long defaultUserId) throws Exception {
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (CreateOrderRequest request : requests) {
+            // request.userId è già stato verificato dal controller (diverso dal token solo per un ADMIN)
+            Long userId = request.getUserId() != null ? request.getUserId() : defaultUserId;
+            orders.add(buildOrder(request, userId));
+        }
+
+        // Con id da sequence e batch JDBC attivo, ordini e righe partono in poche INSERT multi-riga
+        List<Order> saved = orderRepository.saveAll(orders);
+        for (Order order : saved) {
+            publishEvent(OrderEventType.CREATED, order);
+        }
+        return saved;
+    }
+
+    private Order buildOrder(CreateOrderRequest request, Long userId) throws Exception {
         // 1. Determine Order Type
         OrderType type = OrderType.TAKEAWAY;
         if (request.getOrderType() != null) {
@@ -43,10 +104,10 @@ public class OrderServiceImpl implements OrderService {
             }
         }
 
-        // 2. Validate DINE_IN
+        // 2. Validate DINE_IN: solo sulla replica locale, nessuna chiamata remota dentro la transazione
         if (type == OrderType.DINE_IN) {
             if (request.getBookingId() == null) throw new Exception("Prenotazione obbligatoria per ordine al tavolo");
-            verifyBooking(request.getBookingId(), userId, request.getRestaurantId(), authToken);
+            bookingReplicaService.verifyBooking(request.getBookingId(), userId, request.getRestaurantId());
         }
 
         // 3. Create Order Entity
@@ -55,30 +116,104 @@ public class OrderServiceImpl implements OrderService {
         order.setRestaurantId(request.getRestaurantId());
         order.setBookingId(type == OrderType.DINE_IN ? request.getBookingId() : null); // Only set if DINE_IN
         order.setStatus(OrderStatus.PENDING);
-        order.setTotalAmount(request.getTotalAmount());
         order.setOrderType(type);
 
-        // 4. Add Items
+        // 4. Add Items: prezzi e nomi vengono dal listino, non dal client
         if (request.getItems() != null) {
             for (OrderItemDTO itemDTO : request.getItems()) {
                 OrderItem item = new OrderItem();
                 item.setMenuItemId(itemDTO.getFoodItemId());
-                item.setName(itemDTO.getFoodItemName());
-                item.setQuantity(itemDTO.getQuantity());
-                item.setUnitPrice(itemDTO.getUnitPrice());
-                item.setSpecialRequests(itemDTO.getSpecialRequests());
-                item.setSubtotal(itemDTO.getUnitPrice() * itemDTO.getQuantity());
+                priceItem(item, order.getRestaurantId(), itemDTO);
                 order.addItem(item);
             }
         }
 
-        return orderRepository.save(order);
+        // 5. Totale calcolato lato server (il totalAmount del client viene ignorato)
+        recalculateTotal(order);
+
+        return order;
     }
 
     @Override
     @Transactional
     public Order updateOrder(Long orderId, CreateOrderRequest request, Long userId) throws Exception {
-        Order order = orderRepository.findById(orderId)
+        Order order = findEditableOrder(orderId, userId);
+
+        // Aggiorna tipo ordine se necessario
+        if (request.getOrderType() != null) {
+            try {
+                order.setOrderType(OrderType.valueOf(request.getOrderType()));
+            } catch (Exception e) { /* ignore */ }
+        }
+
+        // Confronta le righe in arrivo con quelle esistenti invece di svuotare e reinserire:
+        // vengono eseguite solo le INSERT/UPDATE/DELETE davvero necessarie
+        applyItemChanges(order, request.getItems() != null ? request.getItems() : List.of());
+        recalculateTotal(order);
+
+        Order saved = orderRepository.save(order);
+        publishEvent(OrderEventType.UPDATED, saved);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public Order updateOrderItem(Long orderId, Long itemId, OrderItemDTO changes, Long userId) throws Exception {
+        Order order = findEditableOrder(orderId, userId);
+
+        OrderItem item = order.getItems().stream()
+                .filter(i -> i.getId().equals(itemId))
+                .findFirst()
+                .orElseThrow(() -> new Exception("Piatto non trovato nell'ordine"));
+
+        // Quantità 0 = rimozione della riga
+        if (changes.getQuantity() != null && changes.getQuantity() <= 0) {
+            order.removeItem(item);
+        } else {
+            if (changes.getQuantity() != null) item.setQuantity(changes.getQuantity());
+            if (changes.getSpecialRequests() != null) item.setSpecialRequests(changes.getSpecialRequests());
+            item.setSubtotal(roundToCents(item.getUnitPrice() * item.getQuantity()));
+        }
+
+        recalculateTotal(order);
+
+        Order saved = orderRepository.save(order);
+        publishEvent(OrderEventType.UPDATED, saved);
+        return saved;
+    }
+
+    /**
+     * Valorizza la riga con nome, prezzo e disponibilità presi dal listino in cache.
+     */
+    private void priceItem(OrderItem item, Long restaurantId, OrderItemDTO itemDTO) throws Exception {
+        if (itemDTO.getQuantity() == null || itemDTO.getQuantity() <= 0) {
+            throw new Exception("Quantità non valida per il piatto " + itemDTO.getFoodItemId());
+        }
+        MenuPriceDTO price = menuPriceCache.getPrice(restaurantId, itemDTO.getFoodItemId());
+        if (price == null) {
+            throw new Exception("Piatto non presente nel menu: " + itemDTO.getFoodItemId());
+        }
+        if (!price.isAvailable()) {
+            throw new Exception("Piatto non disponibile: " + price.getName());
+        }
+
+        item.setName(price.getName());
+        item.setQuantity(itemDTO.getQuantity());
+        item.setUnitPrice(price.getPrice());
+        item.setSpecialRequests(itemDTO.getSpecialRequests());
+        item.setSubtotal(roundToCents(price.getPrice() * itemDTO.getQuantity()));
+    }
+
+    private void recalculateTotal(Order order) {
+        order.setTotalAmount(roundToCents(order.getItems().stream().mapToDouble(OrderItem::getSubtotal).sum()));
+    }
+
+    private double roundToCents(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+
+    private Order findEditableOrder(Long orderId, Long userId) throws Exception {
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new Exception("Ordine non trovato"));
 
         // Verifica che l'ordine appartenga all'utente
@@ -90,38 +225,37 @@ public class OrderServiceImpl implements OrderService {
         if (order.getStatus() != OrderStatus.PENDING || order.isPaid()) {
             throw new Exception("Non puoi modificare un ordine già pagato o in lavorazione");
         }
+        return order;
+    }
 
-        // Aggiorna totale
-        order.setTotalAmount(request.getTotalAmount());
-
-        // Aggiorna tipo ordine se necessario
-        if (request.getOrderType() != null) {
-            try {
-                order.setOrderType(OrderType.valueOf(request.getOrderType()));
-            } catch (Exception e) { /* ignore */ }
+    /**
+     * Allinea le righe dell'ordine a quelle richieste. Le righe vengono abbinate per
+     * menuItemId e, a parità di piatto, per posizione; i valori identici non sporcano
+     * l'entità, quindi Hibernate non emette UPDATE per le righe rimaste uguali.
+     */
+    private void applyItemChanges(Order order, List<OrderItemDTO> requested) throws Exception {
+        Map<Long, Deque<OrderItem>> existingByMenuItem = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            existingByMenuItem.computeIfAbsent(item.getMenuItemId(), k -> new ArrayDeque<>()).addLast(item);
         }
 
-        // SVUOTA la lista attuale di piatti
-        // Grazie a orphanRemoval=true in Order.java, questi verranno cancellati dal DB
-        order.getItems().clear();
-
-        // Aggiungi i nuovi piatti dalla richiesta
-        if (request.getItems() != null) {
-            for (OrderItemDTO itemDTO : request.getItems()) {
-                OrderItem item = new OrderItem();
+        for (OrderItemDTO itemDTO : requested) {
+            Deque<OrderItem> candidates = existingByMenuItem.get(itemDTO.getFoodItemId());
+            OrderItem item = candidates != null ? candidates.pollFirst() : null;
+            if (item == null) {
+                item = new OrderItem();
                 item.setMenuItemId(itemDTO.getFoodItemId());
-                item.setName(itemDTO.getFoodItemName());
-                item.setQuantity(itemDTO.getQuantity());
-                item.setUnitPrice(itemDTO.getUnitPrice());
-                item.setSpecialRequests(itemDTO.getSpecialRequests());
-                item.setSubtotal(itemDTO.getUnitPrice() * itemDTO.getQuantity());
-
-                // Usa il metodo helper per impostare la relazione bidirezionale
                 order.addItem(item);
             }
+            priceItem(item, order.getRestaurantId(), itemDTO);
         }
 
-        return orderRepository.save(order);
+        // Le righe non più richieste vengono eliminate grazie a orphanRemoval
+        for (Deque<OrderItem> leftovers : existingByMenuItem.values()) {
+            for (OrderItem item : leftovers) {
+                order.removeItem(item);
+            }
+        }
     }
 
     @Override
@@ -142,89 +276,238 @@ public class OrderServiceImpl implements OrderService {
         orderRepository.delete(order);
     }
 
-    private void verifyBooking(Long bookingId, Long userId, Long restaurantId, String authToken) throws Exception {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", authToken.startsWith("Bearer ") ? authToken : "Bearer " + authToken);
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                BOOKING_SERVICE_URL + "/" + bookingId,
-                HttpMethod.GET,
-                new HttpEntity<>(headers),
-                Map.class
-            );
-
-            Map body = response.getBody();
-            if (body == null || !Boolean.TRUE.equals(body.get("success"))) {
-                throw new Exception("Prenotazione non trovata");
-            }
-
-            Map data = (Map) body.get("data");
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> getUserOrders(Long userId, int limit) {
+        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, limit));
+    }
 
-            // Validate Ownership, Restaurant and Status
-            Long bUserId = ((Number) data.get("userId")).longValue();
-            Long bRestId = ((Number) data.get("restaurantId")).longValue();
-            String status = (String) data.get("status");
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> getRestaurantOrders(Long restaurantId, int limit) {
+        return orderRepository.findByRestaurantIdOrderByCreatedAtDesc(restaurantId, PageRequest.of(0, limit));
+    }
 
-            if (!bUserId.equals(userId)) throw new Exception("Prenotazione non tua");
-            if (!bRestId.equals(restaurantId)) throw new Exception("Ristorante errato");
-            if (!"CONFIRMED".equals(status)) throw new Exception("Prenotazione non CONFERMATA");
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> getRestaurantOrdersByStatus(Long restaurantId, OrderStatus status, int limit) {
+        return orderRepository.findByRestaurantIdAndStatusOrderByCreatedAtAsc(restaurantId, status, PageRequest.of(0, limit));
+    }
 
-        } catch (Exception e) {
-            throw new Exception("Check prenotazione fallito: " + e.getMessage());
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPage<Order> getUserOrdersPage(Long userId, String cursor, int limit) throws Exception {
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<Order> rows;
+        if (cursor == null) {
+            rows = orderRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, pageable);
+        } else {
+            Cursor c = decodeCursor(cursor);
+            rows = orderRepository.findUserOrdersBefore(userId, c.createdAt, c.id, pageable);
         }
+        return toPage(rows, limit);
     }
 
     @Override
-    public List<Order> getUserOrders(Long userId) {
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    @Transactional(readOnly = true)
+    public OrderPage<Order> getRestaurantOrdersPage(Long restaurantId, OrderStatus status, String cursor, int limit) throws Exception {
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<Order> rows;
+        Cursor c = cursor != null ? decodeCursor(cursor) : null;
+        if (status == null) {
+            rows = c == null
+                    ? orderRepository.findByRestaurantIdOrderByCreatedAtDescIdDesc(restaurantId, pageable)
+                    : orderRepository.findRestaurantOrdersBefore(restaurantId, c.createdAt, c.id, pageable);
+        } else {
+            rows = c == null
+                    ? orderRepository.findByRestaurantIdAndStatusOrderByCreatedAtDescIdDesc(restaurantId, status, pageable)
+                    : orderRepository.findRestaurantOrdersByStatusBefore(restaurantId, status, c.createdAt, c.id, pageable);
+        }
+        return toPage(rows, limit);
     }
 
+    // Storico: le tabelle calde e, solo se richiesto, l'archivio vengono lette nello stesso
+    // snapshot, così un ordine archiviato durante la lettura non sparisce né compare due volte
     @Override
-    public List<Order> getRestaurantOrders(Long restaurantId) {
-        return orderRepository.findByRestaurantIdOrderByCreatedAtDesc(restaurantId);
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public OrderPage<OrderView> getUserOrderHistory(Long userId, String cursor, int limit, boolean includeArchived) throws Exception {
+        OrderPage<OrderView> hot = orderQueryService.toViews(getUserOrdersPage(userId, cursor, limit));
+        if (!includeArchived) {
+            return hot;
+        }
+        Cursor c = cursor != null ? decodeCursor(cursor) : null;
+        List<OrderView> archived = orderArchiveService.findUserOrders(userId,
+                c != null ? c.createdAt : null, c != null ? c.id : null, limit + 1);
+        return mergeWithArchive(hot, archived, limit);
     }
 
     @Override
-    public List<Order> getRestaurantOrdersByStatus(Long restaurantId, OrderStatus status) {
-        return orderRepository.findByRestaurantIdAndStatusOrderByCreatedAtAsc(restaurantId, status);
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public OrderPage<OrderView> getRestaurantOrderHistory(Long restaurantId, OrderStatus status, String cursor, int limit,
+                                                          boolean includeArchived) throws Exception {
+        OrderPage<OrderView> hot = orderQueryService.toViews(getRestaurantOrdersPage(restaurantId, status, cursor, limit));
+        if (!includeArchived) {
+            return hot;
+        }
+        Cursor c = cursor != null ? decodeCursor(cursor) : null;
+        List<OrderView> archived = orderArchiveService.findRestaurantOrders(restaurantId, status,
+                c != null ? c.createdAt : null, c != null ? c.id : null, limit + 1);
+        return mergeWithArchive(hot, archived, limit);
+    }
+
+    // Le prime "limit" righe dell'unione stanno sicuramente tra la pagina calda e le limit+1 archiviate
+    private OrderPage<OrderView> mergeWithArchive(OrderPage<OrderView> hot, List<OrderView> archived, int limit) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<OrderView> merged = new ArrayList<>(hot.getItems());
+        merged.addAll(archived);
+        merged.sort(Comparator.comparing(OrderView::getCreatedAt).thenComparing(OrderView::getId).reversed());
+
+        boolean hasMore = hot.isHasMore() || merged.size() > limit;
+        List<OrderView> items = merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+        OrderView last = items.get(items.size() - 1);
+        String nextCursor = hasMore ? encodeCursor(last.getCreatedAt(), last.getId()) : null;
+        return new OrderPage<>(items, nextCursor, hasMore);
+    }
+
+    // Si legge una riga in più del limite per sapere se esiste una pagina successiva
+    private OrderPage<Order> toPage(List<Order> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<Order> items = hasMore ? rows.subList(0, limit) : rows;
+        Order last = hasMore ? items.get(items.size() - 1) : null;
+        String nextCursor = hasMore ? encodeCursor(last.getCreatedAt(), last.getId()) : null;
+        return new OrderPage<>(items, nextCursor, hasMore);
+    }
+
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String cursor) throws Exception {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new Exception("Cursore non valido");
+        }
+    }
+
+    private static class Cursor {
+        final LocalDateTime createdAt;
+        final Long id;
+
+        Cursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
     }
 
     @Override
     @Transactional
-    public Order updateOrderStatus(Long orderId, OrderStatus newStatus, Long ownerId) throws Exception {
-        Order order = orderRepository.findById(orderId)
+    public Order updateOrderStatus(Long orderId, OrderStatus newStatus, OrderStatus expectedStatus, Long restaurantId) throws Exception {
+        List<Order> updated = transition(List.of(orderId), newStatus, expectedStatus, restaurantId);
+        if (!updated.isEmpty()) {
+            return updated.get(0);
+        }
+
+        Order current = orderRepository.findById(orderId)
+                .filter(o -> o.getRestaurantId().equals(restaurantId))
                 .orElseThrow(() -> new Exception("Ordine non trovato"));
+        throw new StatusConflictException("Transizione di stato non applicata: l'ordine è ora " + current.getStatus());
+    }
 
-        // Validation of transitions
-        OrderStatus current = order.getStatus();
+    @Override
+    @Transactional
+    public StatusTransitionResult updateOrderStatuses(List<StatusTransitionRequest> transitions, Long restaurantId) throws Exception {
+        // Raggruppa per (stato atteso, nuovo stato): un solo UPDATE condizionale per gruppo
+        Map<List<OrderStatus>, List<Long>> groups = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (StatusTransitionRequest t : transitions) {
+            if (t.getOrderId() == null || t.getStatus() == null) throw new Exception("orderId e status sono obbligatori");
+            // Due transizioni sullo stesso ordine in gruppi diversi dipenderebbero dall'ordine dei gruppi
+            if (!seen.add(t.getOrderId())) throw new Exception("Ordine ripetuto nel batch: " + t.getOrderId());
+            OrderStatus newStatus = OrderStatus.valueOf(t.getStatus().toUpperCase());
+            OrderStatus expected = t.getExpectedStatus() != null ? OrderStatus.valueOf(t.getExpectedStatus().toUpperCase()) : null;
+            groups.computeIfAbsent(Arrays.asList(expected, newStatus), k -> new ArrayList<>()).add(t.getOrderId());
+        }
 
-        // PENDING -> PREPARING
-        if (current == OrderStatus.PENDING && newStatus == OrderStatus.PREPARING) {
-            order.setStatus(newStatus);
+        List<Order> updated = new ArrayList<>();
+        for (Map.Entry<List<OrderStatus>, List<Long>> group : groups.entrySet()) {
+            OrderStatus expected = group.getKey().get(0);
+            OrderStatus newStatus = group.getKey().get(1);
+            updated.addAll(transition(group.getValue(), newStatus, expected, restaurantId));
         }
-        // PREPARING -> COMPLETED
-        else if (current == OrderStatus.PREPARING && newStatus == OrderStatus.COMPLETED) {
-            order.setStatus(newStatus);
+
+        Set<Long> updatedIds = new HashSet<>();
+        for (Order order : updated) updatedIds.add(order.getId());
+        List<Long> conflicts = new ArrayList<>();
+        for (StatusTransitionRequest t : transitions) {
+            if (!updatedIds.contains(t.getOrderId())) conflicts.add(t.getOrderId());
         }
-        // Cancellazione lato ristoratore
-        else if (newStatus == OrderStatus.CANCELLED) {
-            order.setStatus(newStatus);
+        return new StatusTransitionResult(updated, conflicts);
+    }
+
+    /**
+     * Applica la transizione con un UPDATE condizionale sullo stato (compare-and-set):
+     * gli ordini cambiati nel frattempo, o di un altro ristorante, restano esclusi.
+     */
+    private List<Order> transition(Collection<Long> orderIds, OrderStatus newStatus, OrderStatus expectedStatus,
+                                   Long restaurantId) throws Exception {
+        Set<OrderStatus> sources;
+        if (expectedStatus != null) {
+            if (!expectedStatus.canTransitionTo(newStatus)) {
+                throw new Exception("Transizione di stato non valida: da " + expectedStatus + " a " + newStatus);
+            }
+            sources = EnumSet.of(expectedStatus);
+        } else {
+            sources = OrderStatus.sourcesOf(newStatus);
+            if (sources.isEmpty()) throw new Exception("Transizione di stato non valida verso " + newStatus);
         }
-        else {
-            throw new Exception("Transizione di stato non valida: da " + current + " a " + newStatus);
+
+        List<String> expected = sources.stream().map(Enum::name).toList();
+        entityManager.flush();
+        List<Long> updatedIds = orderRepository.transitionStatus(orderIds, restaurantId, expected, newStatus.name());
+        if (updatedIds.isEmpty()) {
+            return List.of();
         }
 
-        return orderRepository.save(order);
+        // L'UPDATE nativo non tocca le entità già caricate nella sessione: si ricaricano solo
+        // gli ordini modificati rimasti con lo stato precedente, il resto della sessione non cambia
+        List<Order> orders = orderRepository.findAllById(updatedIds);
+        for (Order order : orders) {
+            if (order.getStatus() != newStatus) {
+                entityManager.refresh(order);
+            }
+        }
+        for (Order order : orders) {
+            salesRollupService.onOrderChanged(order);
+            publishEvent(OrderEventType.STATUS_CHANGED, order);
+        }
+        return orders;
     }
 
     @Override
+    @Transactional
     public Order markOrderPaid(Long orderId, String paymentId) throws Exception {
+        // Aggiorna solo i campi del pagamento, senza sovrascrivere lo stato
+        boolean changed = orderRepository.markPaid(orderId, paymentId) == 1;
+
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new Exception("Ordine non trovato"));
+        if (changed) {
+            salesRollupService.onOrderChanged(order);
+            publishEvent(OrderEventType.PAID, order);
+        }
+        return order;
+    }
 
-        order.setPaid(true);
-        order.setPaymentId(paymentId);
-        return orderRepository.save(order);
+    // L'evento passa dall'outbox, nella stessa transazione della modifica; il messaggio porta
+    // anche i piatti (per lo stream della cucina), quindi vanno caricati prima.
+    private void publishEvent(OrderEventType type, Order order) {
+        Hibernate.initialize(order.getItems());
+        outboxService.record(type, order);
     }
 }
\ No newline at end of file
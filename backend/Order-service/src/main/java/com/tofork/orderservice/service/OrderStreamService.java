@@ -0,0 +1,193 @@
+package com.tofork.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tofork.orderservice.dto.OrderEventMessage;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coda cucina in push (Server-Sent Events) per ristorante.
+ * Gli eventi arrivano dal broker (eventi "order.*" dell'outbox) su una coda anonima per istanza:
+ * ogni replica vede le modifiche fatte da tutte le altre. Ogni ristorante ha un buffer circolare
+ * degli ultimi eventi: uno schermo che si riconnette alla stessa replica con Last-Event-ID riceve
+ * solo quello che si è perso, su un'altra replica riceve "resync" e ricarica la coda.
+ */
+@Service
+public class OrderStreamService {
+
+    private static final int REPLAY_BUFFER_SIZE = 256;
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final ObjectMapper objectMapper;
+
+    // Prefisso degli id SSE: il Last-Event-ID dice quale replica ha prodotto l'ordine del buffer
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<Long, RestaurantChannel> channels = new ConcurrentHashMap<>();
+
+    public OrderStreamService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Registra uno schermo cucina. Se lastEventId è nel buffer vengono reinviati gli eventi
+     * arrivati dopo di lui; altrimenti si invia un evento "resync".
+     * Gli id dell'outbox sono allocati a blocchi da ogni replica e non sono crescenti nel tempo,
+     * e l'ordine di arrivo dal broker può cambiare da una replica all'altra: la posizione nel buffer
+     * vale solo per gli id emessi da questa istanza, gli altri richiedono sempre un resync.
+     */
+    public SseEmitter subscribe(Long restaurantId, String lastEventId) {
+        RestaurantChannel channel = channels.computeIfAbsent(restaurantId, id -> new RestaurantChannel());
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+
+        emitter.onCompletion(() -> channel.remove(emitter));
+        emitter.onTimeout(() -> channel.remove(emitter));
+        emitter.onError(e -> channel.remove(emitter));
+
+        synchronized (channel) {
+            try {
+                if (lastEventId != null) {
+                    Long eventId = localEventId(lastEventId);
+                    if (eventId == null || !channel.ids.contains(eventId)) {
+                        emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                    } else {
+                        boolean missed = false;
+                        for (StreamedEvent event : channel.buffer) {
+                            if (missed) {
+                                emitter.send(event.toSse());
+                            }
+                            missed = missed || event.id == eventId;
+                        }
+                    }
+                }
+                channel.emitters.add(emitter);
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+
+    // Id dell'outbox se lastEventId è stato emesso da questa istanza, altrimenti null
+    private Long localEventId(String lastEventId) {
+        String prefix = instanceId + "-";
+        if (!lastEventId.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lastEventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Il message id AMQP è l'id dell'outbox (impostato da OutboxRelay)
+    @RabbitListener(queues = "#{orderStreamQueue.name}")
+    public void onOrderEvent(OrderEventMessage message, @Header(AmqpHeaders.MESSAGE_ID) String messageId) {
+        if (message.getRestaurantId() == null || messageId == null) {
+            return;
+        }
+        long eventId = Long.parseLong(messageId);
+
+        String payload;
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("type", message.getType());
+            body.put("order", message);
+            payload = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            System.err.println("Errore serializzazione evento ordine: " + e.getMessage());
+            return;
+        }
+
+        RestaurantChannel channel = channels.computeIfAbsent(message.getRestaurantId(), id -> new RestaurantChannel());
+        synchronized (channel) {
+            // Consegna at-least-once: un evento già visto non si reinvia
+            if (!channel.ids.add(eventId)) {
+                return;
+            }
+            StreamedEvent streamed = new StreamedEvent(eventId, instanceId + "-" + eventId, message.getType(), payload);
+            channel.buffer.addLast(streamed);
+            if (channel.buffer.size() > REPLAY_BUFFER_SIZE) {
+                channel.ids.remove(channel.buffer.removeFirst().id);
+            }
+            channel.sendToAll(streamed::toSse);
+        }
+    }
+
+    /**
+     * Commento SSE periodico: tiene aperte le connessioni attraverso proxy e gateway.
+     */
+    @Scheduled(fixedRate = 15000)
+    public void heartbeat() {
+        for (RestaurantChannel channel : channels.values()) {
+            synchronized (channel) {
+                channel.sendToAll(() -> SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    private static class StreamedEvent {
+        final long id;
+        final String sseId;
+        final String name;
+        final String payload;
+
+        StreamedEvent(long id, String sseId, String name, String payload) {
+            this.id = id;
+            this.sseId = sseId;
+            this.name = name;
+            this.payload = payload;
+        }
+
+        SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event()
+                    .id(sseId)
+                    .name(name)
+                    .data(payload, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private static class RestaurantChannel {
+        final Deque<StreamedEvent> buffer = new ArrayDeque<>();
+        final Set<Long> ids = new HashSet<>();
+        final List<SseEmitter> emitters = new ArrayList<>();
+
+        synchronized void remove(SseEmitter emitter) {
+            emitters.remove(emitter);
+        }
+
+        // Chiamato con il lock del canale già acquisito; il builder non è riusabile,
+        // quindi ne serve uno nuovo per ogni emitter
+        void sendToAll(Supplier<SseEmitter.SseEventBuilder> event) {
+            List<SseEmitter> dead = new ArrayList<>();
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(event.get());
+                } catch (IOException | IllegalStateException e) {
+                    dead.add(emitter);
+                }
+            }
+            emitters.removeAll(dead);
+        }
+    }
+}
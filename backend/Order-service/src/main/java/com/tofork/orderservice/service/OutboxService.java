@@ -0,0 +1,44 @@
+package com.tofork.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tofork.orderservice.dto.OrderEventMessage;
+import com.tofork.orderservice.model.Order;
+import com.tofork.orderservice.model.OrderEventType;
+import com.tofork.orderservice.model.OutboxEvent;
+import com.tofork.orderservice.repository.OutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Scrive gli eventi ordine nell'outbox. Deve girare nella transazione che modifica
+ * l'ordine: l'evento esiste se e solo se la modifica è stata salvata.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OrderEventType type, Order order) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(OrderEventMessage.from(type, order));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare l'evento ordine " + order.getId(), e);
+        }
+        outboxRepository.save(new OutboxEvent(order.getId(), type.name(), routingKey(type), payload));
+    }
+
+    // order.created, order.updated, order.status_changed, order.paid
+    static String routingKey(OrderEventType type) {
+        return "order." + type.name().toLowerCase();
+    }
+}
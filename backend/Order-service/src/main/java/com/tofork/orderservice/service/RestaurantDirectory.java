@@ -0,0 +1,115 @@
+package com.tofork.orderservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache locale owner -> ristoranti.
+ * Evita una chiamata a Restaurant-service per ogni richiesta delle dashboard owner:
+ * le voci vengono invalidate dagli eventi restaurant.changed e comunque scadono dopo il TTL.
+ */
+@Service
+public class RestaurantDirectory {
+
+    private final RestTemplate restTemplate;
+
+    @Value("${restaurant.service.url:http://restaurant-service:8083}")
+    private String restaurantServiceUrl;
+
+    @Value("${app.owner-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<Long, CachedRestaurantIds> cache = new ConcurrentHashMap<>();
+
+    public RestaurantDirectory(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Ritorna l'id del ristorante gestito dall'owner, dalla cache se ancora valida.
+     */
+    public Long getRestaurantIdByOwner(Long ownerId, String authHeader) throws Exception {
+        return getRestaurantIdsByOwner(ownerId, authHeader).get(0);
+    }
+
+    /**
+     * Tutti i ristoranti dell'owner (mai vuota), dalla cache se ancora valida.
+     */
+    public List<Long> getRestaurantIdsByOwner(Long ownerId, String authHeader) throws Exception {
+        CachedRestaurantIds cached = cache.get(ownerId);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached.restaurantIds;
+            }
+            cache.remove(ownerId, cached);
+        }
+
+        List<Long> restaurantIds = fetchRestaurantIds(ownerId, authHeader);
+        cache.put(ownerId, new CachedRestaurantIds(restaurantIds, System.currentTimeMillis() + ttlSeconds * 1000));
+        return restaurantIds;
+    }
+
+    /**
+     * Scarta la voce dell'owner e quelle che contengono il ristorante (eliminato o passato ad altri).
+     */
+    public void invalidate(Long ownerId, Long restaurantId) {
+        if (ownerId != null) {
+            cache.remove(ownerId);
+        }
+        if (restaurantId != null) {
+            cache.values().removeIf(cached -> cached.restaurantIds.contains(restaurantId));
+        }
+    }
+
+    // Le voci degli owner che non tornano più verrebbero tenute per sempre
+    @Scheduled(fixedDelayString = "${app.owner-cache.sweep-interval-ms:600000}")
+    public void evictExpired() {
+        cache.values().removeIf(CachedRestaurantIds::isExpired);
+    }
+
+    private List<Long> fetchRestaurantIds(Long ownerId, String authHeader) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        if (authHeader != null) {
+            headers.set("Authorization", authHeader);
+        }
+
+        // Endpoint leggero: solo gli id, niente menu né immagini
+        ResponseEntity<List<Long>> response = restTemplate.exchange(
+                restaurantServiceUrl + "/api/restaurants/owner/" + ownerId + "/ids",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                new ParameterizedTypeReference<List<Long>>() {}
+        );
+
+        List<Long> ids = response.getBody();
+        if (ids != null && !ids.isEmpty()) {
+            return List.copyOf(ids);
+        }
+        throw new Exception("Nessun ristorante trovato per questo utente");
+    }
+
+    private static class CachedRestaurantIds {
+        final List<Long> restaurantIds;
+        final long expiresAt;
+
+        CachedRestaurantIds(List<Long> restaurantIds, long expiresAt) {
+            this.restaurantIds = restaurantIds;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.tofork.orderservice.service;
+
+import com.tofork.orderservice.model.Order;
+import com.tofork.orderservice.model.OrderItem;
+import com.tofork.orderservice.model.OrderStatus;
+import com.tofork.orderservice.repository.MenuItemSalesRepository;
+import com.tofork.orderservice.repository.OrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene il venduto giornaliero per piatto (menu_item_sales_daily).
+ * Un ordine viene conteggiato una sola volta, la prima volta che risulta
+ * completato o pagato, e stornato se viene poi annullato.
+ */
+@Service
+public class SalesRollupService {
+
+    private final MenuItemSalesRepository salesRepository;
+    private final OrderRepository orderRepository;
+
+    public SalesRollupService(MenuItemSalesRepository salesRepository, OrderRepository orderRepository) {
+        this.salesRepository = salesRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * Da chiamare nella stessa transazione che cambia stato o pagamento dell'ordine.
+     * Il flag salesRecorded viene commutato con un UPDATE condizionale: se due transazioni
+     * concorrenti vedono lo stesso ordine, solo una delle due applica l'incremento.
+     */
+    @Transactional
+    public void onOrderChanged(Order order) {
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            if (order.isSalesRecorded() && orderRepository.updateSalesRecorded(order.getId(), false) == 1) {
+                apply(order, -1);
+            }
+            return;
+        }
+
+        boolean sold = order.getStatus() == OrderStatus.COMPLETED || order.isPaid();
+        if (sold && !order.isSalesRecorded() && orderRepository.updateSalesRecorded(order.getId(), true) == 1) {
+            apply(order, 1);
+        }
+    }
+
+    public List<Object[]> getMostPopularItems(Long restaurantId, LocalDate from, LocalDate to) {
+        return salesRepository.findMostPopularItemsByRestaurant(restaurantId, from, to);
+    }
+
+    public Long getTotalQuantitySold(Long menuItemId, Collection<Long> restaurantIds) {
+        Long total = salesRepository.getTotalQuantitySoldByFoodItem(menuItemId, restaurantIds);
+        return total != null ? total : 0L;
+    }
+
+    public Double getTotalRevenue(Long menuItemId, Collection<Long> restaurantIds) {
+        Double total = salesRepository.getTotalRevenueByFoodItem(menuItemId, restaurantIds);
+        return total != null ? total : 0.0;
+    }
+
+    private void apply(Order order, int sign) {
+        LocalDate salesDate = order.getCreatedAt().toLocalDate();
+
+        // Righe dello stesso piatto accorpate: un solo upsert per piatto
+        Map<Long, long[]> quantities = new LinkedHashMap<>();
+        Map<Long, double[]> revenues = new LinkedHashMap<>();
+        Map<Long, String> names = new LinkedHashMap<>();
+        for (OrderItem item : order.getItems()) {
+            if (item.getMenuItemId() == null) continue;
+            quantities.computeIfAbsent(item.getMenuItemId(), k -> new long[1])[0] += item.getQuantity();
+            revenues.computeIfAbsent(item.getMenuItemId(), k -> new double[1])[0] += item.getSubtotal();
+            names.put(item.getMenuItemId(), item.getName());
+        }
+
+        for (Map.Entry<Long, long[]> entry : quantities.entrySet()) {
+            Long menuItemId = entry.getKey();
+            salesRepository.increment(order.getRestaurantId(), menuItemId, salesDate, names.get(menuItemId),
+                    sign * entry.getValue()[0], sign * revenues.get(menuItemId)[0]);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.tofork.orderservice.service;
+
+/**
+ * La transizione di stato non è stata applicata perché l'ordine è cambiato nel frattempo.
+ */
+public class StatusConflictException extends Exception {
+
+    public StatusConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,53 @@
+package com.tofork.orderservice.service;
+
+import com.tofork.orderservice.model.StreamTicket;
+import com.tofork.orderservice.repository.StreamTicketRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Ticket monouso per lo stream SSE della cucina, salvati su DB così valgono su tutte le repliche.
+ */
+@Service
+public class StreamTicketService {
+
+    private final StreamTicketRepository ticketRepository;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${app.stream-ticket.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    public StreamTicketService(StreamTicketRepository ticketRepository) {
+        this.ticketRepository = ticketRepository;
+    }
+
+    public String issue(Long restaurantId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String id = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        ticketRepository.save(new StreamTicket(id, restaurantId, LocalDateTime.now().plusSeconds(ttlSeconds)));
+        return id;
+    }
+
+    /**
+     * Ristorante del ticket, che da questo momento non è più valido.
+     */
+    public Long consume(String ticket) throws Exception {
+        List<Long> restaurantIds = ticketRepository.consume(ticket, LocalDateTime.now());
+        if (restaurantIds.isEmpty()) {
+            throw new Exception("Ticket non valido o scaduto");
+        }
+        return restaurantIds.get(0);
+    }
+
+    @Scheduled(fixedDelayString = "${app.stream-ticket.cleanup-interval-ms:600000}")
+    public void cleanup() {
+        ticketRepository.deleteExpired(LocalDateTime.now());
+    }
+}
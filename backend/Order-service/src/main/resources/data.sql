@@ -0,0 +1,59 @@
+-- Migrazione da IDENTITY a sequence: porta le sequence oltre gli id già presenti.
+-- Con allocationSize 50 Hibernate usa i valori (nextval - 49 .. nextval), quindi basta partire dal massimo.
+SELECT setval('orders_seq', (SELECT MAX(id) FROM orders))
+WHERE (SELECT MAX(id) FROM orders) > (SELECT last_value FROM orders_seq);
+
+SELECT setval('order_items_seq', (SELECT MAX(id) FROM order_items))
+WHERE (SELECT MAX(id) FROM order_items) > (SELECT last_value FROM order_items_seq);
+
+-- Backfill del venduto giornaliero per gli ordini completati/pagati non ancora conteggiati.
+-- UPDATE e INSERT nello stesso statement: ogni ordine viene marcato e sommato una volta sola.
+WITH marked AS (
+    UPDATE orders SET sales_recorded = true
+    WHERE sales_recorded = false AND status <> 'CANCELLED' AND (status = 'COMPLETED' OR paid = true)
+    RETURNING id, restaurant_id, created_at
+)
+INSERT INTO menu_item_sales_daily (restaurant_id, menu_item_id, sales_date, name, quantity, revenue)
+SELECT m.restaurant_id, oi.menu_item_id, CAST(m.created_at AS date), MAX(oi.name), SUM(oi.quantity), SUM(oi.subtotal)
+FROM marked m JOIN order_items oi ON oi.order_id = m.id
+WHERE oi.menu_item_id IS NOT NULL
+GROUP BY m.restaurant_id, oi.menu_item_id, CAST(m.created_at AS date)
+ON CONFLICT (restaurant_id, menu_item_id, sales_date) DO UPDATE SET
+    quantity = menu_item_sales_daily.quantity + EXCLUDED.quantity,
+    revenue = menu_item_sales_daily.revenue + EXCLUDED.revenue;
+
+-- Archivio degli ordini chiusi (OrderArchiveService), partizionato per mese di creazione.
+-- Le partizioni mensili vengono create dal servizio prima di spostarvi gli ordini.
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id bigint NOT NULL,
+    booking_id bigint,
+    restaurant_id bigint NOT NULL,
+    user_id bigint NOT NULL,
+    order_type varchar(255),
+    status varchar(255),
+    total_amount double precision,
+    paid boolean NOT NULL,
+    payment_id varchar(255),
+    sales_recorded boolean NOT NULL DEFAULT false,
+    created_at timestamp(6) NOT NULL,
+    archived_at timestamp(6) NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX IF NOT EXISTS idx_orders_archive_user_created ON orders_archive (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_orders_archive_restaurant_created ON orders_archive (restaurant_id, created_at DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS order_items_archive (
+    id bigint NOT NULL,
+    order_id bigint NOT NULL,
+    order_created_at timestamp(6) NOT NULL,
+    menu_item_id bigint,
+    name varchar(255),
+    unit_price double precision,
+    quantity integer,
+    subtotal double precision,
+    special_requests varchar(255),
+    PRIMARY KEY (id, order_created_at)
+) PARTITION BY RANGE (order_created_at);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_archive_order ON order_items_archive (order_id);
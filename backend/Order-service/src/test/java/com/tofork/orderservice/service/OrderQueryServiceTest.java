@@ -0,0 +1,124 @@
+package com.tofork.orderservice.service;
+
+import com.tofork.orderservice.dto.OrderView;
+import com.tofork.orderservice.model.Order;
+import com.tofork.orderservice.model.OrderItem;
+import com.tofork.orderservice.model.OrderStatus;
+import com.tofork.orderservice.model.OrderType;
+import com.tofork.orderservice.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(OrderQueryService.class)
+class OrderQueryServiceTest {
+
+    private static final Long RESTAURANT_ID = 7L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void restaurantListRunsSameNumberOfStatementsForAnySize() {
+        persistOrders(5);
+        long small = countStatements(() -> listRestaurantOrders(5));
+
+        persistOrders(195);
+        long large = countStatements(() -> listRestaurantOrders(200));
+
+        // Una query per gli ordini, una per tutti i piatti
+        assertEquals(2, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    void emptyListSkipsItemQuery() {
+        assertEquals(1, countStatements(() -> listRestaurantOrders(0)));
+    }
+
+    @Test
+    void viewsCarryItemsOfTheirOwnOrder() {
+        persistOrders(3);
+        entityManager.clear();
+
+        List<OrderView> views = orderQueryService.toViews(orderRepository.findByRestaurantIdOrderByCreatedAtDesc(RESTAURANT_ID, PageRequest.of(0, 100)));
+
+        assertEquals(3, views.size());
+        for (OrderView view : views) {
+            assertEquals(2, view.getItems().size());
+            assertEquals(view.getTotalAmount(),
+                    view.getItems().stream().mapToDouble(i -> i.getSubtotal()).sum(), 0.001);
+        }
+    }
+
+    private List<OrderView> listRestaurantOrders(int expectedSize) {
+        List<OrderView> views = orderQueryService.toViews(orderRepository.findByRestaurantIdOrderByCreatedAtDesc(RESTAURANT_ID, PageRequest.of(0, 100)));
+        assertEquals(expectedSize, views.size());
+        return views;
+    }
+
+    private long countStatements(Supplier<?> action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        action.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void persistOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setRestaurantId(RESTAURANT_ID);
+            order.setUserId(100L + i);
+            order.setOrderType(OrderType.TAKEAWAY);
+            order.setStatus(OrderStatus.PENDING);
+            order.addItem(item(1L, "Margherita", 8.0, 1));
+            order.addItem(item(2L, "Tiramisù", 5.0, 2));
+            order.setTotalAmount(18.0);
+            entityManager.persist(order);
+        }
+    }
+
+    private OrderItem item(Long menuItemId, String name, double unitPrice, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setMenuItemId(menuItemId);
+        item.setName(name);
+        item.setUnitPrice(unitPrice);
+        item.setQuantity(quantity);
+        item.setSubtotal(unitPrice * quantity);
+        return item;
+    }
+}
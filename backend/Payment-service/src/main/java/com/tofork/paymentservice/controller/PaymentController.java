@@ -2,9 +2,12 @@ package com.tofork.paymentservice.controller;
 
 import com.tofork.paymentservice.dto.CreatePaymentRequest;
 import com.tofork.paymentservice.dto.PaymentResponse;
+import com.tofork.paymentservice.jwt.JwtService;
 import com.tofork.paymentservice.model.Payment;
+import com.tofork.paymentservice.service.IdempotencyService;
 import com.tofork.paymentservice.service.PaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,15 +18,49 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    // Con Idempotency-Key i retry ricevono la stessa sessione Stripe invece di crearne un'altra.
+    // La chiave è scelta dal client: vale solo per l'utente autenticato, altrimenti due utenti
+    // con la stessa chiave riceverebbero l'uno la sessione dell'altro.
     @PostMapping("/checkout")
-    public ResponseEntity<PaymentResponse> createCheckout(@RequestBody CreatePaymentRequest request) {
-        try {
-            String url = paymentService.initiatePayment(request);
-            return ResponseEntity.ok(new PaymentResponse(url));
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+    public ResponseEntity<?> createCheckout(
+            @RequestBody CreatePaymentRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        String scope = "checkout";
+        String stripeKey = null;
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            Long userId = getUserId(authHeader);
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            scope = "checkout:" + userId;
+            stripeKey = userId + "-" + idempotencyKey;
+        }
+
+        String stripeIdempotencyKey = stripeKey;
+        return idempotencyService.execute(scope, idempotencyKey, request, () -> {
+            try {
+                String url = paymentService.initiatePayment(request, stripeIdempotencyKey);
+                return ResponseEntity.ok(new PaymentResponse(url));
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.internalServerError().build();
+            }
+        });
+    }
+
+    private Long getUserId(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
         }
+        String token = authHeader.substring(7);
+        return jwtService.validateToken(token) ? jwtService.getUserIdFromToken(token) : null;
     }
 
     @GetMapping("/success")
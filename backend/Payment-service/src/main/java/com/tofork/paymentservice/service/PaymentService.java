@@ -4,6 +4,6 @@ import com.tofork.paymentservice.dto.CreatePaymentRequest;
 import com.tofork.paymentservice.model.Payment;
 
 public interface PaymentService {
-    String initiatePayment(CreatePaymentRequest request) throws Exception;
+    String initiatePayment(CreatePaymentRequest request, String idempotencyKey) throws Exception;
     Payment completePayment(String sessionId) throws Exception;
 }
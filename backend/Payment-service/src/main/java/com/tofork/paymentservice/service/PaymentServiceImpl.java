@@ -26,13 +26,14 @@ public class PaymentServiceImpl implements PaymentService {
     private RestTemplate restTemplate;
 
     @Override
-    public String initiatePayment(CreatePaymentRequest request) throws Exception {
+    public String initiatePayment(CreatePaymentRequest request, String idempotencyKey) throws Exception {
         // 1. Crea sessione Stripe
         Session session = stripeService.createCheckoutSession(
             request.getOrderId(), 
             request.getAmount(), 
             request.getSuccessUrl(), 
-            request.getCancelUrl()
+            request.getCancelUrl(),
+            idempotencyKey
         );
 
         // 2. Salva pagamento PENDING
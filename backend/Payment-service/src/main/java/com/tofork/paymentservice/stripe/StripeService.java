@@ -2,6 +2,7 @@ package com.tofork.paymentservice.stripe;
 
 import com.stripe.Stripe;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.checkout.SessionCreateParams;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -19,7 +20,12 @@ public class StripeService {
         Stripe.apiKey = secretKey;
     }
 
-    public Session createCheckoutSession(Long orderId, Long amount, String successUrl, String cancelUrl) throws Exception {
+    /**
+     * La chiave di idempotenza, se presente, viene passata anche a Stripe: un eventuale
+     * retry della stessa chiamata restituisce la sessione già creata.
+     */
+    public Session createCheckoutSession(Long orderId, Long amount, String successUrl, String cancelUrl,
+                                         String idempotencyKey) throws Exception {
         SessionCreateParams params = SessionCreateParams.builder()
                 .setMode(SessionCreateParams.Mode.PAYMENT)
                 .setSuccessUrl(successUrl + "&session_id={CHECKOUT_SESSION_ID}") // Aggiungiamo session_id al ritorno
@@ -37,7 +43,13 @@ public class StripeService {
                 .putMetadata("orderId", String.valueOf(orderId))
                 .build();
 
-        return Session.create(params);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return Session.create(params);
+        }
+        RequestOptions options = RequestOptions.builder()
+                .setIdempotencyKey("checkout-" + idempotencyKey)
+                .build();
+        return Session.create(params, options);
     }
     
     public Session retrieveSession(String sessionId) throws Exception {
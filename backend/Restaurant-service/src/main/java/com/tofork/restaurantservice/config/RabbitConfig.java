@@ -0,0 +1,49 @@
+package com.tofork.restaurantservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tofork.restaurantservice.event.MenuEventPublisher;
+import com.tofork.restaurantservice.event.RestaurantEventPublisher;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitConfig {
+
+    @Value("${app.rabbitmq.exchange:tofork.exchange}")
+    private String exchangeName;
+
+    @Bean
+    public TopicExchange toforkExchange() {
+        return new TopicExchange(exchangeName, true, false);
+    }
+
+    // Indici in memoria: coda anonima per istanza, ogni replica riceve ogni modifica
+    @Bean
+    public Queue restaurantChangesQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding restaurantChangesBinding(Queue restaurantChangesQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(restaurantChangesQueue).to(toforkExchange).with(RestaurantEventPublisher.ROUTING_KEY);
+    }
+
+    // Anche i piatti finiscono nell'indice di ricerca
+    @Bean
+    public Binding restaurantMenuChangesBinding(Queue restaurantChangesQueue, TopicExchange toforkExchange) {
+        return BindingBuilder.bind(restaurantChangesQueue).to(toforkExchange).with(MenuEventPublisher.ROUTING_KEY);
+    }
+
+    @Bean
+    public MessageConverter jsonMessageConverter(ObjectMapper objectMapper) {
+        return new Jackson2JsonMessageConverter(objectMapper);
+    }
+}
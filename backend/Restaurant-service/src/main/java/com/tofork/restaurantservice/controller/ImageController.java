@@ -0,0 +1,92 @@
+package com.tofork.restaurantservice.controller;
+
+import com.tofork.restaurantservice.dto.StoredImage;
+import com.tofork.restaurantservice.model.ImageVariant;
+import com.tofork.restaurantservice.service.ImageService;
+import com.tofork.restaurantservice.service.ImageVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/restaurants/images")
+@CrossOrigin(origins = "*")
+public class ImageController {
+
+    // Attributi con cui Tomcat invia il file con sendfile, senza copiarlo nella JVM
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ImageService imageService;
+
+    public ImageController(ImageService imageService) {
+        this.imageService = imageService;
+    }
+
+    @PostMapping
+    public Map<String, String> upload(@RequestParam("file") MultipartFile file) throws IOException {
+        return Map.of("url", imageService.urlOf(imageService.save(file.getBytes())));
+    }
+
+    /**
+     * L'id è l'hash del contenuto: l'ETag è forte e la risposta si può tenere in cache per sempre.
+     * Con size (thumbnail, card, full) si riceve la variante ridimensionata; finché non è pronta
+     * arriva l'originale con una cache breve, così il client la richiede di nuovo più avanti.
+     */
+    @GetMapping("/{id}")
+    public void get(@PathVariable String id, @RequestParam(required = false) String size,
+                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariant variant = null;
+        if (size != null && !size.isBlank()) {
+            try {
+                variant = ImageVariant.fromParam(size);
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "size deve essere thumbnail, card o full");
+                return;
+            }
+        }
+
+        Optional<StoredImage> found = variant != null ? imageService.findVariant(id, variant) : Optional.empty();
+        // Originale al posto di una variante non ancora pronta (WebP non ha varianti: cache lunga)
+        boolean fallback = variant != null && found.isEmpty() && ImageVariantService.supports(id);
+        if (found.isEmpty()) {
+            found = imageService.find(id);
+        }
+        if (found.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        StoredImage image = found.get();
+
+        String etag = "\"" + image.id() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, fallback ? "public, max-age=60" : "public, max-age=31536000, immutable");
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(ImageService.contentTypeOf(image.id()).toString());
+        response.setContentLengthLong(image.size());
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && image.resource().isFile()) {
+            request.setAttribute(SENDFILE_FILENAME, image.resource().getFile().getAbsolutePath());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, image.size());
+            return;
+        }
+        try (InputStream in = image.resource().getInputStream()) {
+            in.transferTo(response.getOutputStream());
+        }
+    }
+}
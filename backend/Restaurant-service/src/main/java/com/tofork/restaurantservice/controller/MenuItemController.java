@@ -1,6 +1,7 @@
 package com.tofork.restaurantservice.controller;
 
 import com.tofork.restaurantservice.dto.MenuItemDTO;
+import com.tofork.restaurantservice.dto.MenuPriceDTO;
 import com.tofork.restaurantservice.service.MenuItemService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +24,11 @@ public class MenuItemController {
         return service.getByRestaurantId(restaurantId);
     }
 
+    @GetMapping("/restaurant/{restaurantId}/prices")
+    public List<MenuPriceDTO> getPricesByRestaurantId(@PathVariable Long restaurantId) {
+        return service.getPricesByRestaurantId(restaurantId);
+    }
+
     @PostMapping("/restaurant/{restaurantId}")
     public MenuItemDTO add(@PathVariable Long restaurantId, @RequestBody MenuItemDTO dto) {
         return service.add(restaurantId, dto);
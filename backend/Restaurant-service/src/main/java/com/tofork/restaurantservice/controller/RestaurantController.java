@@ -1,8 +1,10 @@
 package com.tofork.restaurantservice.controller;
 
+import com.tofork.restaurantservice.dto.NearbyRestaurantDTO;
 import com.tofork.restaurantservice.dto.RestaurantDTO;
 import com.tofork.restaurantservice.service.RestaurantService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,12 +19,32 @@ public class RestaurantController {
     @Autowired
     private com.tofork.restaurantservice.service.RestaurantTableService tableService;
 
+    // Parametri non validi (pagina, coordinate, immagine): errore del client, non 500
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
     @GetMapping
-    public List<RestaurantDTO> getAll(@RequestParam(required = false) String query) {
-        if (query != null && !query.isEmpty()) return service.search(query);
+    public List<RestaurantDTO> getAll(@RequestParam(required = false) String query,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "20") int size) {
+        if (query != null && !query.isEmpty()) return service.search(query, page, Math.min(size, 100));
         return service.getAll();
     }
 
+    /**
+     * I più vicini al punto (o quelli entro radiusKm), paginati per distanza crescente
+     */
+    @GetMapping("/nearby")
+    public List<NearbyRestaurantDTO> getNearby(@RequestParam double lat,
+                                               @RequestParam double lon,
+                                               @RequestParam(required = false) Double radiusKm,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "20") int size) {
+        return service.nearby(lat, lon, radiusKm, page, Math.min(size, 100));
+    }
+
     @GetMapping("/{id}")
     public RestaurantDTO getById(@PathVariable Long id) {
         return service.getById(id);
@@ -38,6 +60,11 @@ public class RestaurantController {
         return service.getByOwnerId(ownerId);
     }
 
+    @GetMapping("/owner/{ownerId}/ids")
+    public List<Long> getIdsByOwnerId(@PathVariable Long ownerId) {
+        return service.getIdsByOwnerId(ownerId);
+    }
+
     @PostMapping
     public RestaurantDTO add(@RequestBody RestaurantDTO r) {
         return service.add(r);
@@ -0,0 +1,4 @@
+package com.tofork.restaurantservice.dto;
+
+public record Coordinates(double lat, double lon) {
+}
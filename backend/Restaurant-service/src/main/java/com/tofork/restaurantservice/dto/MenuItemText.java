@@ -0,0 +1,7 @@
+package com.tofork.restaurantservice.dto;
+
+/**
+ * Nome e descrizione di un piatto per l'indice di ricerca.
+ */
+public record MenuItemText(Long restaurantId, String name, String description) {
+}
@@ -0,0 +1,23 @@
+package com.tofork.restaurantservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Vista minima di un piatto per il calcolo dei prezzi negli altri servizi.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuPriceDTO {
+    private Long id;
+    private Long restaurantId;
+    private String name;
+    private BigDecimal price;
+    private boolean available;
+}
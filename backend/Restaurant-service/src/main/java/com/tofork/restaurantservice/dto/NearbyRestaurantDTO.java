@@ -0,0 +1,15 @@
+package com.tofork.restaurantservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyRestaurantDTO {
+    private RestaurantDTO restaurant;
+    private Double distanceKm;
+}
@@ -0,0 +1,7 @@
+package com.tofork.restaurantservice.dto;
+
+/**
+ * Solo id e coordinate: quanto basta per costruire l'indice spaziale.
+ */
+public record RestaurantLocation(Long id, Double lat, Double lon) {
+}
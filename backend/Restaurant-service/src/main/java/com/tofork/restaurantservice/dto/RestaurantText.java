@@ -0,0 +1,7 @@
+package com.tofork.restaurantservice.dto;
+
+/**
+ * Campi testuali di un ristorante indicizzati dalla ricerca (senza immagini e menu).
+ */
+public record RestaurantText(Long id, String name, String description, String category) {
+}
@@ -0,0 +1,9 @@
+package com.tofork.restaurantservice.dto;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Contenuto di un'immagine nell'ImageStore; se resource è un file si può inviare senza copie.
+ */
+public record StoredImage(String id, Resource resource, long size) {
+}
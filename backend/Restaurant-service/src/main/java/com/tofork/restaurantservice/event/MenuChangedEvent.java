@@ -0,0 +1,18 @@
+package com.tofork.restaurantservice.event;
+
+/**
+ * Il menu (prezzi o disponibilità) di un ristorante è cambiato.
+ * Pubblicato anche su RabbitMQ: gli altri servizi invalidano le loro cache dei prezzi.
+ */
+public class MenuChangedEvent {
+    private Long restaurantId;
+
+    public MenuChangedEvent() {}
+
+    public MenuChangedEvent(Long restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+}
@@ -0,0 +1,33 @@
+package com.tofork.restaurantservice.event;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class MenuEventPublisher {
+
+    public static final String ROUTING_KEY = "menu.changed";
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${app.rabbitmq.exchange:tofork.exchange}")
+    private String exchangeName;
+
+    public MenuEventPublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(exchangeName, ROUTING_KEY, event);
+        } catch (AmqpException e) {
+            // Le cache remote scadono comunque per TTL
+            System.err.println("Errore pubblicazione evento menu " + event.getRestaurantId() + ": " + e.getMessage());
+        }
+    }
+}
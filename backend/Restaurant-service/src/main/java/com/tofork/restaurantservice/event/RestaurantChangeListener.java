@@ -0,0 +1,56 @@
+package com.tofork.restaurantservice.event;
+
+import com.tofork.restaurantservice.service.RestaurantSearchIndex;
+import com.tofork.restaurantservice.service.RestaurantSpatialIndex;
+import org.springframework.amqp.rabbit.annotation.RabbitHandler;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tiene allineati gli indici in memoria: subito per le modifiche di questa istanza,
+ * tramite RabbitMQ per quelle delle altre repliche.
+ * Arrivano anche gli eventi pubblicati da questa istanza: applicarli due volte non cambia nulla.
+ */
+@Component
+@RabbitListener(queues = "#{restaurantChangesQueue.name}")
+public class RestaurantChangeListener {
+
+    private final RestaurantSpatialIndex spatialIndex;
+    private final RestaurantSearchIndex searchIndex;
+
+    public RestaurantChangeListener(RestaurantSpatialIndex spatialIndex, RestaurantSearchIndex searchIndex) {
+        this.spatialIndex = spatialIndex;
+        this.searchIndex = searchIndex;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLocalChange(RestaurantChangedEvent event) {
+        apply(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLocalMenuChange(MenuChangedEvent event) {
+        searchIndex.reindex(event.getRestaurantId());
+    }
+
+    @RabbitHandler
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        apply(event);
+    }
+
+    @RabbitHandler
+    public void onMenuChanged(MenuChangedEvent event) {
+        searchIndex.reindex(event.getRestaurantId());
+    }
+
+    private void apply(RestaurantChangedEvent event) {
+        if (event.isDeleted()) {
+            spatialIndex.remove(event.getRestaurantId());
+        } else {
+            spatialIndex.put(event.getRestaurantId(), event.getLat(), event.getLon());
+        }
+        searchIndex.reindex(event.getRestaurantId());
+    }
+}
@@ -0,0 +1,47 @@
+package com.tofork.restaurantservice.event;
+
+/**
+ * Un ristorante è stato creato, modificato o eliminato.
+ * Pubblicato anche su RabbitMQ: ogni istanza aggiorna i propri indici in memoria.
+ */
+public class RestaurantChangedEvent {
+    private Long restaurantId;
+    // Null se il proprietario non è cambiato (es. coordinate dal geocoding)
+    private Long ownerId;
+    private Double lat;
+    private Double lon;
+    private boolean deleted;
+
+    public RestaurantChangedEvent() {}
+
+    public RestaurantChangedEvent(Long restaurantId, Double lat, Double lon, boolean deleted) {
+        this(restaurantId, null, lat, lon, deleted);
+    }
+
+    public RestaurantChangedEvent(Long restaurantId, Long ownerId, Double lat, Double lon, boolean deleted) {
+        this.restaurantId = restaurantId;
+        this.ownerId = ownerId;
+        this.lat = lat;
+        this.lon = lon;
+        this.deleted = deleted;
+    }
+
+    public static RestaurantChangedEvent deleted(Long restaurantId) {
+        return new RestaurantChangedEvent(restaurantId, null, null, true);
+    }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public Long getOwnerId() { return ownerId; }
+    public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+
+    public Double getLat() { return lat; }
+    public void setLat(Double lat) { this.lat = lat; }
+
+    public Double getLon() { return lon; }
+    public void setLon(Double lon) { this.lon = lon; }
+
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+}
@@ -0,0 +1,18 @@
+package com.tofork.restaurantservice.event;
+
+/**
+ * I tavoli di un ristorante sono cambiati (aggiunti o eliminati).
+ * Pubblicato su RabbitMQ: Booking-service invalida la sua cache dei tavoli.
+ */
+public class TablesChangedEvent {
+    private Long restaurantId;
+
+    public TablesChangedEvent() {}
+
+    public TablesChangedEvent(Long restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+}
@@ -0,0 +1,33 @@
+package com.tofork.restaurantservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Risultato del geocoding per indirizzo normalizzato; lat e lon nulle se l'indirizzo non è stato trovato.
+ */
+@Entity
+@Table(name = "geocoded_addresses")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GeocodedAddress {
+
+    @Id
+    @Column(name = "normalized_address", length = 512)
+    private String normalizedAddress;
+
+    private Double lat;
+    private Double lon;
+
+    @Column(nullable = false)
+    private LocalDateTime geocodedAt;
+
+    public boolean isFound() {
+        return lat != null && lon != null;
+    }
+}
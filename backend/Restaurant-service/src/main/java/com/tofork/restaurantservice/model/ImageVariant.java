@@ -0,0 +1,34 @@
+package com.tofork.restaurantservice.model;
+
+import java.util.Locale;
+
+/**
+ * Versioni ridimensionate (JPEG) di un'immagine caricata: lato massimo in pixel e qualità.
+ */
+public enum ImageVariant {
+    THUMBNAIL(160, 0.75f),
+    CARD(480, 0.8f),
+    FULL(1600, 0.85f);
+
+    private final int maxSide;
+    private final float quality;
+
+    ImageVariant(int maxSide, float quality) {
+        this.maxSide = maxSide;
+        this.quality = quality;
+    }
+
+    public int getMaxSide() { return maxSide; }
+    public float getQuality() { return quality; }
+
+    /**
+     * Id della variante nello store: hash dell'originale più il nome della variante.
+     */
+    public String idFor(String originalId) {
+        return originalId.substring(0, originalId.lastIndexOf('.')) + "-" + name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    public static ImageVariant fromParam(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
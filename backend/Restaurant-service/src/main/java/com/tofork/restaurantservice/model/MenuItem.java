@@ -32,11 +32,9 @@ public class MenuItem {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
 
-    // --- MODIFICA IMPORTANTE QUI ---
-    // Usiamo TEXT per permettere stringhe Base64 molto lunghe
-    @Column(columnDefinition = "TEXT")
+    // Solo l'URL: l'immagine sta nell'ImageStore (le vecchie righe Base64 le converte ImageMigration)
+    @Column(length = 1024)
     private String imageUrl;
-    // -------------------------------
 
     private String category;
 
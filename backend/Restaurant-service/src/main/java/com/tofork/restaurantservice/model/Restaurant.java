@@ -32,8 +32,8 @@ public class Restaurant {
     @Column(unique = true)
     private String slug;
 
-    // --- MODIFICA IMPORTANTE: TEXT per supportare Base64 lunghi ---
-    @Column(columnDefinition = "TEXT")
+    // Solo l'URL: l'immagine sta nell'ImageStore (le vecchie righe Base64 le converte ImageMigration)
+    @Column(length = 1024)
     private String image;
 
     private String category;
@@ -0,0 +1,7 @@
+package com.tofork.restaurantservice.repository;
+
+import com.tofork.restaurantservice.model.GeocodedAddress;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface GeocodedAddressRepository extends JpaRepository<GeocodedAddress, String> {
+}
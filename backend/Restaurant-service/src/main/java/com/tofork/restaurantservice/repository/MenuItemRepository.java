@@ -1,11 +1,42 @@
 package com.tofork.restaurantservice.repository;
 
+import com.tofork.restaurantservice.dto.MenuItemText;
+import com.tofork.restaurantservice.dto.MenuPriceDTO;
 import com.tofork.restaurantservice.model.MenuItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 public interface MenuItemRepository extends JpaRepository<MenuItem,Long> {
     List<MenuItem> findByRestaurantId(Long restaurantId);
     List<MenuItem> findByName(String name);
+
+    // Prezzi e disponibilità senza caricare descrizioni e immagini
+    @Query("SELECT new com.tofork.restaurantservice.dto.MenuPriceDTO(m.id, m.restaurant.id, m.name, m.price, m.available) " +
+            "FROM MenuItem m WHERE m.restaurant.id = :restaurantId")
+    List<MenuPriceDTO> findPricesByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    // Testi dei piatti per l'indice di ricerca
+    @Query("SELECT new com.tofork.restaurantservice.dto.MenuItemText(m.restaurant.id, m.name, m.description) FROM MenuItem m")
+    List<MenuItemText> findAllTexts();
+
+    @Query("SELECT new com.tofork.restaurantservice.dto.MenuItemText(m.restaurant.id, m.name, m.description) " +
+            "FROM MenuItem m WHERE m.restaurant.id = :restaurantId")
+    List<MenuItemText> findTextsByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    // Immagini ancora salvate come Base64 nella colonna
+    @Query("SELECT m.id FROM MenuItem m WHERE m.imageUrl LIKE 'data:%' OR LENGTH(m.imageUrl) > :maxUrlLength")
+    List<Long> findIdsWithInlineImage(@Param("maxUrlLength") int maxUrlLength);
+
+    @Query("SELECT m.imageUrl FROM MenuItem m WHERE m.id = :id")
+    String findImageUrlById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MenuItem m SET m.imageUrl = :imageUrl WHERE m.id = :id")
+    int updateImageUrl(@Param("id") Long id, @Param("imageUrl") String imageUrl);
 }
@@ -1,13 +1,67 @@
 package com.tofork.restaurantservice.repository;
 
+import com.tofork.restaurantservice.dto.RestaurantLocation;
+import com.tofork.restaurantservice.dto.RestaurantText;
 import com.tofork.restaurantservice.model.Restaurant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
     List<Restaurant> findByOwnerId(Long ownerId);
 
+    // Solo gli id: usato dagli altri servizi per risolvere owner -> ristorante
+    @Query("SELECT r.id FROM Restaurant r WHERE r.ownerId = :ownerId ORDER BY r.id")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Solo le coordinate: usato per costruire l'indice spaziale
+    @Query("SELECT new com.tofork.restaurantservice.dto.RestaurantLocation(r.id, r.lat, r.lon) " +
+           "FROM Restaurant r WHERE r.lat IS NOT NULL AND r.lon IS NOT NULL")
+    List<RestaurantLocation> findAllLocations();
+
+    // Testi per l'indice di ricerca, senza immagini
+    @Query("SELECT new com.tofork.restaurantservice.dto.RestaurantText(r.id, r.name, r.description, r.category) " +
+           "FROM Restaurant r")
+    List<RestaurantText> findAllTexts();
+
+    @Query("SELECT new com.tofork.restaurantservice.dto.RestaurantText(r.id, r.name, r.description, r.category) " +
+           "FROM Restaurant r WHERE r.id = :id")
+    java.util.Optional<RestaurantText> findTextById(@Param("id") Long id);
+
+    // Coppie [id ristorante, highlight]
+    @Query("SELECT r.id, h FROM Restaurant r JOIN r.highlights h")
+    List<Object[]> findAllHighlights();
+
+    @Query("SELECT h FROM Restaurant r JOIN r.highlights h WHERE r.id = :id")
+    List<String> findHighlightsById(@Param("id") Long id);
+
+    // Coppie [id, indirizzo] dei ristoranti ancora da geocodificare
+    @Query("SELECT r.id, r.address FROM Restaurant r WHERE (r.lat IS NULL OR r.lon IS NULL) AND r.address IS NOT NULL")
+    List<Object[]> findIdsAndAddressesWithoutCoordinates();
+
+    // Coordinate dal geocoding, solo se nel frattempo l'indirizzo non è cambiato
+    @Modifying
+    @Transactional
+    @Query("UPDATE Restaurant r SET r.lat = :lat, r.lon = :lon WHERE r.id = :id AND r.address = :address")
+    int updateCoordinates(@Param("id") Long id, @Param("address") String address,
+                          @Param("lat") Double lat, @Param("lon") Double lon);
+
+    // Immagini ancora salvate come Base64 nella colonna
+    @Query("SELECT r.id FROM Restaurant r WHERE r.image LIKE 'data:%' OR LENGTH(r.image) > :maxUrlLength")
+    List<Long> findIdsWithInlineImage(@Param("maxUrlLength") int maxUrlLength);
+
+    @Query("SELECT r.image FROM Restaurant r WHERE r.id = :id")
+    String findImageById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Restaurant r SET r.image = :image WHERE r.id = :id")
+    int updateImage(@Param("id") Long id, @Param("image") String image);
+
     List<Restaurant> findByName(String name);
 
     List<Restaurant> findByDescriptionContainingIgnoreCase(String description);
@@ -0,0 +1,17 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.Coordinates;
+
+import java.util.Optional;
+
+/**
+ * Risolve un indirizzo in coordinate. L'implementazione si sceglie con app.geocoding.provider
+ * (nominatim oppure offline per test e ambienti senza rete).
+ */
+public interface Geocoder {
+
+    /**
+     * Vuoto se l'indirizzo non esiste; un'eccezione se il servizio non ha risposto (si riprova).
+     */
+    Optional<Coordinates> geocode(String address) throws Exception;
+}
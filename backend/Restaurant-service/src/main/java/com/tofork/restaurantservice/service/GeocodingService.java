@@ -0,0 +1,203 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.Coordinates;
+import com.tofork.restaurantservice.event.RestaurantChangedEvent;
+import com.tofork.restaurantservice.model.GeocodedAddress;
+import com.tofork.restaurantservice.model.Restaurant;
+import com.tofork.restaurantservice.repository.GeocodedAddressRepository;
+import com.tofork.restaurantservice.repository.RestaurantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geocoding in background degli indirizzi dei ristoranti.
+ * Salvare un ristorante non aspetta mai il servizio esterno: se l'indirizzo normalizzato è già in
+ * geocoded_addresses le coordinate si applicano subito, altrimenti il ristorante entra in una coda
+ * smaltita al massimo una richiesta ogni min-interval-ms, con nuovi tentativi a intervalli crescenti.
+ */
+@Component
+public class GeocodingService {
+
+    private final Geocoder geocoder;
+    private final GeocodedAddressRepository cacheRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.geocoding.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.geocoding.retry-base-ms:5000}")
+    private long retryBaseMs;
+
+    // Dopo quanto un "indirizzo non trovato" si riprova (il servizio esterno può essere stato aggiornato)
+    @Value("${app.geocoding.not-found-ttl-hours:168}")
+    private long notFoundTtlHours;
+
+    private final DelayQueue<Job> queue = new DelayQueue<>();
+    // Ultimo indirizzo in attesa per ristorante: i lavori con un indirizzo superato vengono scartati
+    private final Map<Long, String> pending = new ConcurrentHashMap<>();
+
+    public GeocodingService(Geocoder geocoder, GeocodedAddressRepository cacheRepository,
+                            RestaurantRepository restaurantRepository, ApplicationEventPublisher eventPublisher) {
+        this.geocoder = geocoder;
+        this.cacheRepository = cacheRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Applica le coordinate già note per l'indirizzo del ristorante.
+     * Falso se l'indirizzo non è mai stato risolto: va messo in coda con enqueue dopo il salvataggio.
+     */
+    public boolean applyCached(Restaurant restaurant) {
+        if (restaurant.getAddress() == null || restaurant.getAddress().isBlank()) {
+            return false;
+        }
+        Optional<GeocodedAddress> cached = cacheRepository.findById(normalize(query(restaurant.getAddress())))
+                .filter(hit -> !isExpired(hit));
+        cached.ifPresent(hit -> {
+            restaurant.setLat(hit.getLat());
+            restaurant.setLon(hit.getLon());
+        });
+        return cached.isPresent();
+    }
+
+    public void enqueue(Long restaurantId, String address) {
+        if (restaurantId == null || address == null || address.isBlank()) {
+            return;
+        }
+        String previous = pending.put(restaurantId, address);
+        if (!address.equals(previous)) {
+            queue.add(new Job(restaurantId, address, 0, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Un solo lavoro per esecuzione: il ritmo dello scheduler è il limite verso il servizio esterno.
+     */
+    @Scheduled(fixedDelayString = "${app.geocoding.min-interval-ms:2000}")
+    public void processNext() {
+        Job job = queue.poll();
+        while (job != null && !job.address.equals(pending.get(job.restaurantId))) {
+            job = queue.poll();
+        }
+        if (job == null) {
+            return;
+        }
+
+        String key = normalize(query(job.address));
+        GeocodedAddress result = cacheRepository.findById(key).filter(hit -> !isExpired(hit)).orElse(null);
+        if (result == null) {
+            try {
+                Optional<Coordinates> found = geocoder.geocode(query(job.address));
+                result = cacheRepository.save(GeocodedAddress.builder()
+                        .normalizedAddress(key)
+                        .lat(found.map(Coordinates::lat).orElse(null))
+                        .lon(found.map(Coordinates::lon).orElse(null))
+                        .geocodedAt(LocalDateTime.now())
+                        .build());
+            } catch (Exception e) {
+                retry(job, e);
+                return;
+            }
+        }
+        pending.remove(job.restaurantId, job.address);
+
+        if (!result.isFound()) {
+            System.out.println("Nessuna coordinata trovata per: " + job.address);
+            return;
+        }
+        // L'aggiornamento vale solo se l'indirizzo non è cambiato nel frattempo
+        if (restaurantRepository.updateCoordinates(job.restaurantId, job.address, result.getLat(), result.getLon()) > 0) {
+            eventPublisher.publishEvent(new RestaurantChangedEvent(job.restaurantId, result.getLat(), result.getLon(), false));
+        }
+    }
+
+    /**
+     * Rimette in coda i ristoranti ancora senza coordinate (lavori persi al riavvio, esauriti i tentativi
+     * o indirizzo "non trovato" da più di not-found-ttl-hours).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.geocoding.sweep-interval-ms:600000}",
+               fixedDelayString = "${app.geocoding.sweep-interval-ms:600000}")
+    public void enqueueMissing() {
+        for (Object[] row : restaurantRepository.findIdsAndAddressesWithoutCoordinates()) {
+            String address = (String) row[1];
+            if (cacheRepository.findById(normalize(query(address))).map(this::isExpired).orElse(true)) {
+                enqueue((Long) row[0], address);
+            }
+        }
+    }
+
+    // Solo i risultati negativi scadono: le coordinate trovate restano valide
+    private boolean isExpired(GeocodedAddress cached) {
+        return !cached.isFound()
+                && cached.getGeocodedAt().isBefore(LocalDateTime.now().minusHours(notFoundTtlHours));
+    }
+
+    private void retry(Job job, Exception e) {
+        int attempt = job.attempt + 1;
+        if (attempt >= maxAttempts) {
+            pending.remove(job.restaurantId, job.address);
+            System.err.println("Geocoding fallito per indirizzo " + job.address + " dopo " + attempt + " tentativi: " + e.getMessage());
+            return;
+        }
+        long delay = retryBaseMs << (attempt - 1);
+        System.err.println("Errore Geocoding per indirizzo " + job.address + ", nuovo tentativo tra " + delay + " ms: " + e.getMessage());
+        queue.add(new Job(job.restaurantId, job.address, attempt, System.currentTimeMillis() + delay));
+    }
+
+    // Aggiungiamo ", Torino" per essere più precisi se l'utente non lo mette
+    private static String query(String address) {
+        return address.toLowerCase(Locale.ROOT).contains("torino") ? address : address + ", Torino";
+    }
+
+    /**
+     * Chiave della cache: minuscole, senza accenti né punteggiatura, spazi compattati.
+     */
+    static String normalize(String address) {
+        return Normalizer.normalize(address, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{Nd}]+", " ")
+                .trim();
+    }
+
+    private static final class Job implements Delayed {
+        final Long restaurantId;
+        final String address;
+        final int attempt;
+        final long readyAt;
+
+        Job(Long restaurantId, String address, int attempt, long readyAt) {
+            this.restaurantId = restaurantId;
+            this.address = address;
+            this.attempt = attempt;
+            this.readyAt = readyAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAt, ((Job) other).readyAt);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.repository.MenuItemRepository;
+import com.tofork.restaurantservice.repository.RestaurantRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * All'avvio sposta nell'ImageStore le immagini Base64 rimaste nel database e lascia solo l'URL.
+ * Le righe si leggono una alla volta; essendo lo store indirizzato per contenuto, due repliche
+ * che migrano insieme producono lo stesso risultato.
+ */
+@Component
+public class ImageMigration {
+
+    private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final ImageService imageService;
+
+    public ImageMigration(RestaurantRepository restaurantRepository, MenuItemRepository menuItemRepository,
+                          ImageService imageService) {
+        this.restaurantRepository = restaurantRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.imageService = imageService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        int restaurants = 0;
+        for (Long id : restaurantRepository.findIdsWithInlineImage(ImageService.MAX_URL_LENGTH)) {
+            if (convert(id, restaurantRepository::findImageById, restaurantRepository::updateImage)) {
+                restaurants++;
+            }
+        }
+        int menuItems = 0;
+        for (Long id : menuItemRepository.findIdsWithInlineImage(ImageService.MAX_URL_LENGTH)) {
+            if (convert(id, menuItemRepository::findImageUrlById, menuItemRepository::updateImageUrl)) {
+                menuItems++;
+            }
+        }
+        if (restaurants > 0 || menuItems > 0) {
+            System.out.println("Immagini migrate nell'ImageStore: " + restaurants + " ristoranti, " + menuItems + " piatti");
+        }
+    }
+
+    private boolean convert(Long id, Function<Long, String> load, ImageUpdate update) {
+        String value = load.apply(id);
+        if (!ImageService.isInline(value)) {
+            return false;
+        }
+        try {
+            update.apply(id, imageService.toUrl(value));
+            return true;
+        } catch (RuntimeException e) {
+            // Riga lasciata com'è: verrà ritentata al prossimo avvio
+            System.err.println("Migrazione immagine fallita per id " + id + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ImageUpdate {
+        int apply(Long id, String url);
+    }
+}
@@ -0,0 +1,155 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.StoredImage;
+import com.tofork.restaurantservice.model.ImageVariant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Le immagini non stanno più nel database: i campi image/imageUrl contengono solo l'URL
+ * dell'immagine nell'ImageStore (o un URL esterno/statico inviato dal client).
+ */
+@Service
+public class ImageService {
+
+    private static final Pattern IMAGE_ID = Pattern.compile("[0-9a-f]{64}\\.(jpg|png|gif|webp)");
+
+    // Oltre questa lunghezza un valore non è un URL ma un'immagine Base64 da spostare nello store
+    static final int MAX_URL_LENGTH = 1024;
+
+    private final ImageStore store;
+    private final ImageVariantService variantService;
+
+    @Value("${app.images.base-url:/api/restaurants/images}")
+    private String baseUrl;
+
+    @Value("${app.images.max-bytes:10485760}")
+    private long maxBytes;
+
+    public ImageService(ImageStore store, ImageVariantService variantService) {
+        this.store = store;
+        this.variantService = variantService;
+    }
+
+    /**
+     * Salva nello store le immagini Base64 (data URI o Base64 puro) e restituisce il loro URL;
+     * gli URL vengono restituiti invariati.
+     */
+    public String toUrl(String value) {
+        if (value == null || value.isBlank()) {
+            return value;
+        }
+        byte[] data = decodeInline(value);
+        if (data == null) {
+            return value;
+        }
+        return urlOf(save(data));
+    }
+
+    public static boolean isInline(String value) {
+        return value != null && (value.startsWith("data:") || value.length() > MAX_URL_LENGTH);
+    }
+
+    public String save(byte[] data) {
+        if (data.length == 0 || data.length > maxBytes) {
+            throw new IllegalArgumentException("Immagine vuota o troppo grande");
+        }
+        try {
+            String id = store.save(data, extensionOf(data));
+            // Le varianti ridimensionate si generano in background
+            variantService.generate(id);
+            return id;
+        } catch (IOException e) {
+            throw new RuntimeException("Salvataggio immagine fallito: " + e.getMessage(), e);
+        }
+    }
+
+    public Optional<StoredImage> find(String id) throws IOException {
+        if (!IMAGE_ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        return store.find(id);
+    }
+
+    /**
+     * La variante richiesta dell'immagine; vuoto se non è ancora pronta (la generazione parte in
+     * background) o se il formato non ha varianti (WebP).
+     */
+    public Optional<StoredImage> findVariant(String id, ImageVariant variant) throws IOException {
+        if (!IMAGE_ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        return variantService.find(id, variant);
+    }
+
+    public String urlOf(String id) {
+        return baseUrl + "/" + id;
+    }
+
+    public static MediaType contentTypeOf(String id) {
+        String extension = id.substring(id.lastIndexOf('.') + 1);
+        switch (extension) {
+            case "jpg":
+                return MediaType.IMAGE_JPEG;
+            case "png":
+                return MediaType.IMAGE_PNG;
+            case "gif":
+                return MediaType.IMAGE_GIF;
+            default:
+                return MediaType.parseMediaType("image/" + extension);
+        }
+    }
+
+    private static byte[] decodeInline(String value) {
+        if (value.startsWith("data:")) {
+            int comma = value.indexOf(',');
+            if (comma < 0 || !value.substring(0, comma).endsWith(";base64")) {
+                throw new IllegalArgumentException("Immagine non valida: è supportato solo il formato data URI Base64");
+            }
+            return Base64.getMimeDecoder().decode(value.substring(comma + 1));
+        }
+        if (value.length() > MAX_URL_LENGTH) {
+            try {
+                return Base64.getMimeDecoder().decode(value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Immagine non valida: né URL né Base64");
+            }
+        }
+        return null;
+    }
+
+    // Formato riconosciuto dai primi byte, indipendentemente da quanto dichiarato dal client
+    private static String extensionOf(byte[] data) {
+        if (startsWith(data, 0, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(data, 0, 0x89, 'P', 'N', 'G')) {
+            return "png";
+        }
+        if (startsWith(data, 0, 'G', 'I', 'F', '8')) {
+            return "gif";
+        }
+        if (startsWith(data, 0, 'R', 'I', 'F', 'F') && startsWith(data, 8, 'W', 'E', 'B', 'P')) {
+            return "webp";
+        }
+        throw new IllegalArgumentException("Formato immagine non supportato (JPEG, PNG, GIF o WebP)");
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... prefix) {
+        if (data.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[offset + i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
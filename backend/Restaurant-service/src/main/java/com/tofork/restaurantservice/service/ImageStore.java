@@ -0,0 +1,23 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.StoredImage;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Archivio delle immagini indirizzato per contenuto: l'id è lo SHA-256 dei byte più l'estensione,
+ * quindi la stessa immagine caricata due volte occupa spazio una volta sola e non cambia mai.
+ * L'implementazione si sceglie con app.images.store.
+ */
+public interface ImageStore {
+
+    String save(byte[] data, String extension) throws IOException;
+
+    /**
+     * Salva con un id scelto dal chiamante (le varianti ridimensionate di un'immagine).
+     */
+    void saveAs(String id, byte[] data) throws IOException;
+
+    Optional<StoredImage> find(String id) throws IOException;
+}
@@ -0,0 +1,239 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.StoredImage;
+import com.tofork.restaurantservice.model.ImageVariant;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera le varianti ridimensionate (thumbnail, card, full) delle immagini caricate, su un pool
+ * di thread limitato con coda limitata: se la coda è piena l'immagine viene saltata e la variante
+ * sarà generata alla prima richiesta. Le varianti finiscono nell'ImageStore accanto all'originale.
+ */
+@Component
+public class ImageVariantService {
+
+    // Oltre questa dimensione (già sottocampionata) l'immagine non viene decodificata (memoria)
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    // La variante più grande: la decodifica non scende sotto questo lato
+    private static final int LARGEST_SIDE = Arrays.stream(ImageVariant.values())
+            .mapToInt(ImageVariant::getMaxSide).max().orElseThrow();
+
+    private final ImageStore store;
+    private final ThreadPoolExecutor executor;
+    // Una sola generazione per immagine alla volta
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageVariantService(ImageStore store,
+                               @Value("${app.images.variant-threads:2}") int threads,
+                               @Value("${app.images.variant-queue:100}") int queueSize) {
+        this.store = store;
+        // Decodifica in memoria, senza file temporanei di ImageIO
+        ImageIO.setUseCache(false);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                task -> {
+                    Thread thread = new Thread(task, "image-variants-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Avvia (o riusa) la generazione delle varianti mancanti dell'immagine originalId.
+     */
+    public CompletableFuture<Void> generate(String originalId) {
+        if (!supports(originalId)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(originalId, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateAll(originalId);
+                    created.complete(null);
+                } catch (RuntimeException e) {
+                    System.err.println("Generazione varianti fallita per " + originalId + ": " + e.getMessage());
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(originalId, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Coda piena: non si blocca chi carica l'immagine
+            inFlight.remove(originalId, created);
+            created.complete(null);
+        }
+        return created;
+    }
+
+    /**
+     * La variante se già generata; altrimenti ne avvia la generazione senza attenderla
+     * (il thread della richiesta non resta bloccato dietro al pool) e restituisce vuoto.
+     */
+    public Optional<StoredImage> find(String originalId, ImageVariant variant) throws IOException {
+        Optional<StoredImage> existing = store.find(variant.idFor(originalId));
+        if (existing.isEmpty() && supports(originalId)) {
+            generate(originalId);
+        }
+        return existing;
+    }
+
+    // Solo formati leggibili da ImageIO senza plugin (niente WebP); le varianti non si ridimensionano a loro volta
+    public static boolean supports(String originalId) {
+        return originalId.matches("[0-9a-f]{64}\\.(jpg|png|gif)");
+    }
+
+    private void generateAll(String originalId) {
+        try {
+            Optional<StoredImage> original = store.find(originalId);
+            if (original.isEmpty()) {
+                return;
+            }
+            byte[] originalBytes;
+            try (InputStream in = original.get().resource().getInputStream()) {
+                originalBytes = in.readAllBytes();
+            }
+            BufferedImage source = decode(originalBytes);
+            if (source == null) {
+                return;
+            }
+            for (ImageVariant variant : ImageVariant.values()) {
+                String variantId = variant.idFor(originalId);
+                if (store.find(variantId).isPresent()) {
+                    continue;
+                }
+                byte[] encoded = encodeJpeg(resize(source, variant.getMaxSide()), variant.getQuality());
+                // Un JPEG già piccolo non va ricompresso in un file più grande
+                if (originalId.endsWith(".jpg") && encoded.length >= originalBytes.length) {
+                    encoded = originalBytes;
+                }
+                store.saveAs(variantId, encoded);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private static BufferedImage decode(byte[] data) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // Sottocampionamento in decodifica: si legge una riga/colonna ogni "step", restando
+                // comunque sopra il lato della variante più grande. Una foto da 6000px non viene
+                // mai allocata a piena risoluzione.
+                int step = Math.max(1, Math.max(width, height) / LARGEST_SIDE);
+                long decodedPixels = (long) ((width + step - 1) / step) * ((height + step - 1) / step);
+                if (decodedPixels > MAX_PIXELS) {
+                    System.err.println("Immagine troppo grande per generare le varianti: " + width + "x" + height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Riduce a lato massimo maxSide (mai ingrandisce) dimezzando per passi, così il risultato
+     * resta nitido anche con l'interpolazione bilineare. Il primo dimezzamento parte direttamente
+     * dall'immagine decodificata, senza copiarla prima a piena dimensione.
+     */
+    static BufferedImage resize(BufferedImage source, int maxSide) {
+        double scale = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // JPEG non ha trasparenza: ogni draw riempie lo sfondo di bianco
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        // Almeno un draw serve comunque, per passare a RGB senza alfa
+        if (current == source || current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
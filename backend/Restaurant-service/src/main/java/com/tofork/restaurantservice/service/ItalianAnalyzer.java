@@ -0,0 +1,70 @@
+package com.tofork.restaurantservice.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Analisi del testo per l'indice di ricerca: minuscole, rimozione degli accenti,
+ * parole vuote italiane e stemming "leggero" (si toglie solo la desinenza di genere e numero,
+ * così pizza/pizze e fungo/funghi finiscono sullo stesso termine).
+ */
+final class ItalianAnalyzer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    // Già senza accenti: "è" diventa "e"
+    private static final Set<String> STOP_WORDS = Set.of(
+            "il", "lo", "la", "gli", "le", "un", "uno", "una",
+            "di", "da", "in", "con", "su", "per", "tra", "fra", "ed",
+            "del", "dello", "della", "dei", "degli", "delle",
+            "al", "allo", "alla", "ai", "agli", "alle",
+            "dal", "dallo", "dalla", "dai", "dagli", "dalle",
+            "nel", "nello", "nella", "nei", "negli", "nelle",
+            "sul", "sullo", "sulla", "sui", "sugli", "sulle",
+            "che", "non", "piu", "come", "anche", "the", "and", "of");
+
+    private static final int MIN_STEM_LENGTH = 5;
+
+    private ItalianAnalyzer() {
+    }
+
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(folded)) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    static String stem(String word) {
+        int length = word.length();
+        if (length < MIN_STEM_LENGTH) {
+            return word;
+        }
+        char last = word.charAt(length - 1);
+        char previous = word.charAt(length - 2);
+        switch (last) {
+            case 'e':
+            case 'i':
+                // -che/-chi/-ghe/-ghi e -ie/-ii perdono anche la penultima lettera
+                return word.substring(0, previous == 'h' || previous == 'i' ? length - 2 : length - 1);
+            case 'a':
+            case 'o':
+                return word.substring(0, previous == 'i' ? length - 2 : length - 1);
+            default:
+                return word;
+        }
+    }
+}
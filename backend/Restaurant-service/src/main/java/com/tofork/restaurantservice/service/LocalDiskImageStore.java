@@ -0,0 +1,76 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.StoredImage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Immagini su disco in app.images.dir, in sottocartelle per i primi due caratteri dell'hash.
+ * Con più repliche la cartella deve essere un volume condiviso.
+ */
+@Component
+@ConditionalOnProperty(name = "app.images.store", havingValue = "local", matchIfMissing = true)
+public class LocalDiskImageStore implements ImageStore {
+
+    private final Path root;
+
+    public LocalDiskImageStore(@Value("${app.images.dir:/data/images}") String dir) {
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String save(byte[] data, String extension) throws IOException {
+        String id = sha256(data) + "." + extension;
+        if (!Files.exists(pathOf(id))) {
+            saveAs(id, data);
+        }
+        return id;
+    }
+
+    @Override
+    public void saveAs(String id, byte[] data) throws IOException {
+        Path target = pathOf(id);
+        // Scrittura su file temporaneo e rename atomico: nessuno legge mai un file a metà
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<StoredImage> find(String id) throws IOException {
+        Path path = pathOf(id);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredImage(id, new FileSystemResource(path), Files.size(path)));
+    }
+
+    private Path pathOf(String id) {
+        return root.resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
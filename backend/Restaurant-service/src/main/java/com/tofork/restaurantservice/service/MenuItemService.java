@@ -1,11 +1,14 @@
 package com.tofork.restaurantservice.service;
 
 import com.tofork.restaurantservice.dto.MenuItemDTO;
+import com.tofork.restaurantservice.dto.MenuPriceDTO;
+import com.tofork.restaurantservice.event.MenuChangedEvent;
 import com.tofork.restaurantservice.mapper.RestaurantMapper;
 import com.tofork.restaurantservice.model.MenuItem;
 import com.tofork.restaurantservice.model.Restaurant;
 import com.tofork.restaurantservice.repository.MenuItemRepository;
 import com.tofork.restaurantservice.repository.RestaurantRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,11 +20,16 @@ public class MenuItemService {
     private final MenuItemRepository repository;
     private final RestaurantRepository restaurantRepository;
     private final RestaurantMapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageService imageService;
 
-    public MenuItemService(MenuItemRepository repository, RestaurantRepository restaurantRepository, RestaurantMapper mapper) {
+    public MenuItemService(MenuItemRepository repository, RestaurantRepository restaurantRepository, RestaurantMapper mapper,
+                           ApplicationEventPublisher eventPublisher, ImageService imageService) {
         this.repository = repository;
         this.restaurantRepository = restaurantRepository;
         this.mapper = mapper;
+        this.eventPublisher = eventPublisher;
+        this.imageService = imageService;
     }
 
     public List<MenuItemDTO> getByRestaurantId(Long restaurantId) {
@@ -38,16 +46,26 @@ public class MenuItemService {
                 .name(dto.getTitle())
                 .description(dto.getDescription())
                 .price(dto.getPrice())
-                .imageUrl(dto.getImageUrl())
+                .imageUrl(imageService.toUrl(dto.getImageUrl()))
                 .category(dto.getCategory())
                 .restaurant(restaurant)
                 .available(true)
                 .build();
 
-        return mapper.toMenuItemDTO(repository.save(menuItem));
+        MenuItemDTO saved = mapper.toMenuItemDTO(repository.save(menuItem));
+        eventPublisher.publishEvent(new MenuChangedEvent(restaurantId));
+        return saved;
+    }
+
+    public List<MenuPriceDTO> getPricesByRestaurantId(Long restaurantId) {
+        return repository.findPricesByRestaurantId(restaurantId);
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(menuItem -> {
+            Long restaurantId = menuItem.getRestaurant().getId();
+            repository.delete(menuItem);
+            eventPublisher.publishEvent(new MenuChangedEvent(restaurantId));
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.Coordinates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Geocoding tramite Nominatim (OpenStreetMap). Le chiamate arrivano solo dalla coda di GeocodingService,
+ * che rispetta il limite di richieste al secondo.
+ */
+@Component
+@ConditionalOnProperty(name = "app.geocoding.provider", havingValue = "nominatim", matchIfMissing = true)
+public class NominatimGeocoder implements Geocoder {
+
+    private final RestTemplate restTemplate;
+
+    @Value("${app.geocoding.nominatim.url:https://nominatim.openstreetmap.org/search}")
+    private String nominatimUrl;
+
+    public NominatimGeocoder(@Value("${app.geocoding.connect-timeout-ms:2000}") long connectTimeoutMs,
+                             @Value("${app.geocoding.read-timeout-ms:5000}") long readTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restTemplate = new RestTemplate(factory);
+    }
+
+    @Override
+    public Optional<Coordinates> geocode(String address) throws Exception {
+        URI uri = UriComponentsBuilder.fromUriString(nominatimUrl)
+                .queryParam("format", "json")
+                .queryParam("limit", 1)
+                .queryParam("q", address)
+                .encode()
+                .build()
+                .toUri();
+
+        // Nominatim richiede obbligatoriamente uno User-Agent
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("User-Agent", "ToFork-App-Student-Project");
+
+        List<Map<String, Object>> results = restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers),
+                new ParameterizedTypeReference<List<Map<String, Object>>>() {}).getBody();
+        if (results == null || results.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Nominatim restituisce le coordinate come stringhe
+        Map<String, Object> firstResult = results.get(0);
+        return Optional.of(new Coordinates(
+                Double.parseDouble(firstResult.get("lat").toString()),
+                Double.parseDouble(firstResult.get("lon").toString())));
+    }
+}
@@ -0,0 +1,21 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.Coordinates;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Sostituto locale senza rete (app.geocoding.provider=offline): nessun indirizzo viene risolto,
+ * le coordinate si possono sempre passare a mano nel RestaurantDTO.
+ */
+@Component
+@ConditionalOnProperty(name = "app.geocoding.provider", havingValue = "offline")
+public class OfflineGeocoder implements Geocoder {
+
+    @Override
+    public Optional<Coordinates> geocode(String address) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,233 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.MenuItemText;
+import com.tofork.restaurantservice.dto.RestaurantText;
+import com.tofork.restaurantservice.repository.MenuItemRepository;
+import com.tofork.restaurantservice.repository.RestaurantRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice invertito in memoria sui ristoranti: nome, descrizione, categoria, highlights
+ * e nome/descrizione dei piatti, con pesi diversi per campo e punteggio BM25.
+ * Una ricerca legge solo le liste dei termini cercati, quindi il costo dipende dai risultati
+ * e non dalla dimensione del catalogo. Viene ricostruito all'avvio e periodicamente;
+ * tra una ricostruzione e l'altra lo aggiornano gli eventi restaurant.changed e menu.changed.
+ */
+@Component
+public class RestaurantSearchIndex {
+
+    private static final float NAME_WEIGHT = 5f;
+    private static final float CATEGORY_WEIGHT = 3f;
+    private static final float HIGHLIGHT_WEIGHT = 2f;
+    private static final float DISH_NAME_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float DISH_DESCRIPTION_WEIGHT = 0.5f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Comparator<Hit> BEST_FIRST =
+            Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::restaurantId);
+
+    public record Hit(Long restaurantId, double score) {
+    }
+
+    private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+
+    private volatile Index current = new Index();
+    // Durante la ricostruzione le modifiche vanno applicate anche al nuovo indice
+    private volatile Index building;
+
+    public RestaurantSearchIndex(RestaurantRepository restaurantRepository, MenuItemRepository menuItemRepository) {
+        this.restaurantRepository = restaurantRepository;
+        this.menuItemRepository = menuItemRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${app.search.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${app.search.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        Index fresh = new Index();
+        building = fresh;
+        try {
+            Map<Long, List<String>> highlights = new HashMap<>();
+            for (Object[] row : restaurantRepository.findAllHighlights()) {
+                highlights.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+            Map<Long, List<MenuItemText>> dishes = new HashMap<>();
+            for (MenuItemText dish : menuItemRepository.findAllTexts()) {
+                dishes.computeIfAbsent(dish.restaurantId(), id -> new ArrayList<>()).add(dish);
+            }
+            for (RestaurantText restaurant : restaurantRepository.findAllTexts()) {
+                fresh.load(restaurant.id(), document(restaurant,
+                        highlights.getOrDefault(restaurant.id(), List.of()),
+                        dishes.getOrDefault(restaurant.id(), List.of())));
+            }
+            current = fresh;
+        } finally {
+            building = null;
+            fresh.touched.clear();
+        }
+    }
+
+    /**
+     * Rilegge dal database i testi del ristorante (o lo toglie se non esiste più).
+     */
+    public void reindex(Long restaurantId) {
+        if (restaurantId == null) {
+            return;
+        }
+        Map<String, Float> document = restaurantRepository.findTextById(restaurantId)
+                .map(restaurant -> document(restaurant,
+                        restaurantRepository.findHighlightsById(restaurantId),
+                        menuItemRepository.findTextsByRestaurantId(restaurantId)))
+                .orElse(null);
+
+        Index pending = building;
+        Index index = current;
+        index.put(restaurantId, document);
+        if (pending != null && pending != index) {
+            pending.put(restaurantId, document);
+        }
+    }
+
+    /**
+     * I primi limit ristoranti per rilevanza; conta anche quanti termini della ricerca contengono.
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(ItalianAnalyzer.analyze(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        return current.search(terms, limit);
+    }
+
+    private static Map<String, Float> document(RestaurantText restaurant, List<String> highlights, List<MenuItemText> dishes) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, restaurant.name(), NAME_WEIGHT);
+        addField(frequencies, restaurant.category(), CATEGORY_WEIGHT);
+        addField(frequencies, restaurant.description(), DESCRIPTION_WEIGHT);
+        for (String highlight : highlights) {
+            addField(frequencies, highlight, HIGHLIGHT_WEIGHT);
+        }
+        for (MenuItemText dish : dishes) {
+            addField(frequencies, dish.name(), DISH_NAME_WEIGHT);
+            addField(frequencies, dish.description(), DISH_DESCRIPTION_WEIGHT);
+        }
+        return frequencies;
+    }
+
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String term : ItalianAnalyzer.analyze(text)) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+    }
+
+    private static final class Index {
+        // termine -> (ristorante -> frequenza pesata)
+        final Map<String, Map<Long, Float>> postings = new ConcurrentHashMap<>();
+        final Map<Long, Map<String, Float>> documents = new ConcurrentHashMap<>();
+        final Map<Long, Double> lengths = new ConcurrentHashMap<>();
+        // Ristoranti modificati durante la ricostruzione: la lettura dal database non li sovrascrive
+        final Set<Long> touched = ConcurrentHashMap.newKeySet();
+        volatile double totalLength;
+
+        synchronized void load(Long id, Map<String, Float> document) {
+            if (!touched.contains(id)) {
+                replace(id, document);
+            }
+        }
+
+        synchronized void put(Long id, Map<String, Float> document) {
+            touched.add(id);
+            replace(id, document);
+        }
+
+        private void replace(Long id, Map<String, Float> document) {
+            Map<String, Float> previous = documents.remove(id);
+            if (previous != null) {
+                for (String term : previous.keySet()) {
+                    postings.computeIfPresent(term, (t, ids) -> {
+                        ids.remove(id);
+                        return ids.isEmpty() ? null : ids;
+                    });
+                }
+                totalLength -= lengths.remove(id);
+            }
+            if (document == null || document.isEmpty()) {
+                return;
+            }
+            document.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(id, frequency));
+            double length = length(document);
+            documents.put(id, Collections.unmodifiableMap(document));
+            lengths.put(id, length);
+            totalLength += length;
+        }
+
+        List<Hit> search(Set<String> terms, int limit) {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = Math.max(1, totalLength / documentCount);
+
+            Map<Long, double[]> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Float> ids = postings.get(term);
+                if (ids == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - ids.size() + 0.5) / (ids.size() + 0.5));
+                ids.forEach((id, frequency) -> {
+                    double norm = K1 * (1 - B + B * lengths.getOrDefault(id, averageLength) / averageLength);
+                    double[] score = scores.computeIfAbsent(id, k -> new double[2]);
+                    score[0] += idf * frequency * (K1 + 1) / (frequency + norm);
+                    score[1]++;
+                });
+            }
+
+            // I ristoranti che contengono più termini della ricerca passano davanti
+            PriorityQueue<Hit> best = new PriorityQueue<>(BEST_FIRST.reversed());
+            scores.forEach((id, score) -> {
+                Hit hit = new Hit(id, score[0] * score[1] / terms.size());
+                if (best.size() < limit) {
+                    best.add(hit);
+                } else if (BEST_FIRST.compare(hit, best.peek()) < 0) {
+                    best.poll();
+                    best.add(hit);
+                }
+            });
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(BEST_FIRST);
+            return hits;
+        }
+
+        private static double length(Map<String, Float> document) {
+            double length = 0;
+            for (float frequency : document.values()) {
+                length += frequency;
+            }
+            return length;
+        }
+    }
+}
@@ -1,32 +1,45 @@
 package com.tofork.restaurantservice.service;
 
+import com.tofork.restaurantservice.dto.NearbyRestaurantDTO;
 import com.tofork.restaurantservice.dto.RestaurantDTO;
+import com.tofork.restaurantservice.event.MenuChangedEvent;
+import com.tofork.restaurantservice.event.RestaurantChangedEvent;
 import com.tofork.restaurantservice.mapper.RestaurantMapper;
 import com.tofork.restaurantservice.model.Restaurant;
 import com.tofork.restaurantservice.repository.RestaurantRepository;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class RestaurantService {
 
+    // Risultati massimi oltre cui non si pagina: page e size arrivano dalla query string
+    static final int MAX_RESULT_WINDOW = 1000;
+
     private final RestaurantRepository repository;
     private final RestaurantMapper mapper;
 
-    // Inizializziamo RestTemplate per fare chiamate HTTP esterne (Nominatim)
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ApplicationEventPublisher eventPublisher;
+    private final RestaurantSpatialIndex spatialIndex;
+    private final RestaurantSearchIndex searchIndex;
+    private final GeocodingService geocodingService;
+    private final ImageService imageService;
 
-    public RestaurantService(RestaurantRepository repository, RestaurantMapper mapper) {
+    public RestaurantService(RestaurantRepository repository, RestaurantMapper mapper, ApplicationEventPublisher eventPublisher,
+                             RestaurantSpatialIndex spatialIndex, RestaurantSearchIndex searchIndex,
+                             GeocodingService geocodingService, ImageService imageService) {
         this.repository = repository;
         this.mapper = mapper;
+        this.eventPublisher = eventPublisher;
+        this.spatialIndex = spatialIndex;
+        this.searchIndex = searchIndex;
+        this.geocodingService = geocodingService;
+        this.imageService = imageService;
     }
 
     public RestaurantDTO getById(Long id) {
@@ -43,15 +56,74 @@ public class RestaurantService {
                 .collect(Collectors.toList());
     }
 
+    public List<Long> getIdsByOwnerId(Long ownerId) {
+        return repository.findIdsByOwnerId(ownerId);
+    }
+
     public List<RestaurantDTO> getAll() {
         return repository.findAll().stream()
                 .map(mapper::toDTO)
                 .collect(Collectors.toList());
     }
 
-    public List<RestaurantDTO> search(String query) {
-        return repository.findByNameContainingIgnoreCase(query).stream()
-                .map(mapper::toDTO)
+    /**
+     * Ricerca testuale ordinata per rilevanza su ristoranti e piatti, paginata
+     */
+    public List<RestaurantDTO> search(String query, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Parametri di paginazione non validi");
+        }
+        if ((long) (page + 1) * size > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Pagina oltre i primi " + MAX_RESULT_WINDOW + " risultati");
+        }
+        List<RestaurantSearchIndex.Hit> hits = searchIndex.search(query, (page + 1) * size);
+        if (hits.size() <= page * size) {
+            return List.of();
+        }
+        List<Long> ids = hits.subList(page * size, hits.size()).stream()
+                .map(RestaurantSearchIndex.Hit::restaurantId)
+                .collect(Collectors.toList());
+
+        Map<Long, Restaurant> restaurants = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Restaurant::getId, Function.identity()));
+        return ids.stream()
+                .filter(restaurants::containsKey)
+                .map(id -> mapper.toDTO(restaurants.get(id)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Ristoranti più vicini al punto, ordinati per distanza; con radiusKm solo quelli entro il raggio.
+     * L'ordine viene dall'indice spaziale, dal database si leggono solo i ristoranti della pagina.
+     */
+    public List<NearbyRestaurantDTO> nearby(double lat, double lon, Double radiusKm, int page, int size) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new IllegalArgumentException("Coordinate non valide");
+        }
+        if (page < 0 || size < 1 || (radiusKm != null && radiusKm <= 0)) {
+            throw new IllegalArgumentException("Parametri di paginazione o raggio non validi");
+        }
+        if ((long) (page + 1) * size > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Pagina oltre i primi " + MAX_RESULT_WINDOW + " risultati");
+        }
+
+        List<RestaurantSpatialIndex.Hit> hits = spatialIndex.nearest(lat, lon, (page + 1) * size, radiusKm);
+        if (hits.size() <= page * size) {
+            return List.of();
+        }
+        List<RestaurantSpatialIndex.Hit> pageHits = hits.subList(page * size, hits.size());
+
+        Map<Long, Restaurant> restaurants = repository.findAllById(
+                        pageHits.stream().map(RestaurantSpatialIndex.Hit::restaurantId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Restaurant::getId, Function.identity()));
+
+        return pageHits.stream()
+                .filter(hit -> restaurants.containsKey(hit.restaurantId()))
+                .map(hit -> NearbyRestaurantDTO.builder()
+                        .restaurant(mapper.toDTO(restaurants.get(hit.restaurantId())))
+                        .distanceKm(Math.round(hit.distanceKm() * 1000) / 1000.0)
+                        .build())
                 .collect(Collectors.toList());
     }
 
@@ -60,18 +132,26 @@ public class RestaurantService {
      */
     public RestaurantDTO add(RestaurantDTO dto) {
         Restaurant restaurant = mapper.toEntity(dto);
+        restaurant.setImage(imageService.toUrl(dto.getImage()));
 
         if (restaurant.getOwnerId() == null) {
             restaurant.setOwnerId(dto.getOwnerId() != null ? dto.getOwnerId() : 1L); // Default if missing
         }
 
         // --- GEOCODING AUTOMATICO ---
-        // Se c'è un indirizzo, calcoliamo subito Lat e Lon
-        if (restaurant.getAddress() != null && !restaurant.getAddress().isEmpty()) {
-            updateCoordinates(restaurant);
+        // Coordinate manuali o già note per l'indirizzo; altrimenti le calcola la coda in background
+        boolean needsGeocoding = false;
+        if ((restaurant.getLat() == null || restaurant.getLon() == null)
+                && restaurant.getAddress() != null && !restaurant.getAddress().isEmpty()) {
+            needsGeocoding = !geocodingService.applyCached(restaurant);
         }
 
-        return mapper.toDTO(repository.save(restaurant));
+        Restaurant saved = repository.save(restaurant);
+        if (needsGeocoding) {
+            geocodingService.enqueue(saved.getId(), saved.getAddress());
+        }
+        eventPublisher.publishEvent(new RestaurantChangedEvent(saved.getId(), saved.getOwnerId(), saved.getLat(), saved.getLon(), false));
+        return mapper.toDTO(saved);
     }
 
     /**
@@ -88,27 +168,38 @@ public class RestaurantService {
 
             // Update new fields
             existing.setSlug(dto.getSlug());
-            existing.setImage(dto.getImage());
+            existing.setImage(imageService.toUrl(dto.getImage()));
             existing.setCategory(dto.getCategory());
             existing.setAveragePrice(dto.getAveragePrice());
             existing.setHighlights(dto.getHighlights());
 
             // Se vengono passate coordinate manuali, usiamo quelle
+            boolean needsGeocoding = false;
             if (dto.getLat() != null && dto.getLon() != null) {
                 existing.setLat(dto.getLat());
                 existing.setLon(dto.getLon());
             }
             // Altrimenti, se l'indirizzo è cambiato o mancano le coordinate, le calcoliamo
+            // (quelle vecchie non valgono più per il nuovo indirizzo)
             else if (addressChanged || existing.getLat() == null || existing.getLon() == null) {
-                updateCoordinates(existing);
+                existing.setLat(null);
+                existing.setLon(null);
+                needsGeocoding = !geocodingService.applyCached(existing);
             }
 
-            return mapper.toDTO(repository.save(existing));
+            Restaurant saved = repository.save(existing);
+            if (needsGeocoding) {
+                geocodingService.enqueue(saved.getId(), saved.getAddress());
+            }
+            eventPublisher.publishEvent(new RestaurantChangedEvent(saved.getId(), saved.getOwnerId(), saved.getLat(), saved.getLon(), false));
+            return mapper.toDTO(saved);
         }).orElseThrow(() -> new RuntimeException("Restaurant not found"));
     }
 
     public void delete(Long id) {
         repository.deleteById(id);
+        eventPublisher.publishEvent(new MenuChangedEvent(id));
+        eventPublisher.publishEvent(RestaurantChangedEvent.deleted(id));
     }
 
     public Integer getRestaurantCapacity(Long restaurantId) {
@@ -118,50 +209,4 @@ public class RestaurantService {
                         .sum())
                 .orElse(0);
     }
-
-    /**
-     * Metodo privato per ottenere Lat/Lon da Nominatim (OpenStreetMap)
-     */
-    private void updateCoordinates(Restaurant restaurant) {
-        try {
-            // Costruiamo l'URL per Nominatim
-            // Aggiungiamo ", Torino" per essere più precisi se l'utente non lo mette
-            String addressQuery = restaurant.getAddress();
-            if (!addressQuery.toLowerCase().contains("torino")) {
-                addressQuery += ", Torino";
-            }
-
-            String url = "https://nominatim.openstreetmap.org/search?format=json&q=" +
-                    addressQuery.replace(" ", "+");
-
-            // Nominatim richiede obbligatoriamente uno User-Agent
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", "ToFork-App-Student-Project");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            // Facciamo la chiamata HTTP GET
-            ResponseEntity<List> response = restTemplate.exchange(url, HttpMethod.GET, entity, List.class);
-
-            List<Map<String, Object>> results = response.getBody();
-
-            if (results != null && !results.isEmpty()) {
-                // Prendiamo il primo risultato
-                Map<String, Object> firstResult = results.get(0);
-
-                // Nominatim restituisce le coordinate come stringhe, le convertiamo in Double
-                Double lat = Double.parseDouble(firstResult.get("lat").toString());
-                Double lon = Double.parseDouble(firstResult.get("lon").toString());
-
-                restaurant.setLat(lat);
-                restaurant.setLon(lon);
-
-                System.out.println("Coordinate aggiornate per " + restaurant.getName() + ": " + lat + ", " + lon);
-            } else {
-                System.out.println("Nessuna coordinata trovata per: " + restaurant.getAddress());
-            }
-        } catch (Exception e) {
-            // Logghiamo l'errore ma NON blocchiamo il salvataggio del ristorante
-            System.err.println("Errore Geocoding per indirizzo " + restaurant.getAddress() + ": " + e.getMessage());
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,264 @@
+package com.tofork.restaurantservice.service;
+
+import com.tofork.restaurantservice.dto.RestaurantLocation;
+import com.tofork.restaurantservice.repository.RestaurantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Griglia in memoria delle coordinate dei ristoranti (celle di cell-degrees gradi).
+ * La ricerca visita le celle ad anelli attorno al punto e si ferma appena nessuna cella
+ * non ancora vista può contenere un ristorante più vicino. Viene ricostruita all'avvio e
+ * periodicamente; tra una ricostruzione e l'altra la aggiornano gli eventi restaurant.changed.
+ */
+@Component
+public class RestaurantSpatialIndex {
+
+    // Lunghezza minima di un grado di latitudine: stima per difetto delle distanze tra anelli
+    private static final double MIN_KM_PER_DEGREE = 110.5;
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final Comparator<Hit> NEAREST_FIRST =
+            Comparator.comparingDouble(Hit::distanceKm).thenComparing(Hit::restaurantId);
+
+    public record Hit(Long restaurantId, double distanceKm) {
+    }
+
+    private final RestaurantRepository repository;
+    private final double cellDegrees;
+
+    private volatile Grid current;
+    // Durante la ricostruzione le modifiche vanno applicate anche alla nuova griglia
+    private volatile Grid building;
+
+    public RestaurantSpatialIndex(RestaurantRepository repository,
+                                  @Value("${app.nearby.cell-degrees:0.01}") double cellDegrees) {
+        this.repository = repository;
+        this.cellDegrees = cellDegrees;
+        this.current = new Grid(cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${app.nearby.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${app.nearby.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        Grid fresh = new Grid(cellDegrees);
+        building = fresh;
+        try {
+            for (RestaurantLocation location : repository.findAllLocations()) {
+                fresh.load(location.id(), location.lat(), location.lon());
+            }
+            current = fresh;
+        } finally {
+            building = null;
+            fresh.touched.clear();
+        }
+    }
+
+    public void put(Long restaurantId, Double lat, Double lon) {
+        if (restaurantId == null) {
+            return;
+        }
+        if (lat == null || lon == null) {
+            remove(restaurantId);
+            return;
+        }
+        Grid pending = building;
+        Grid grid = current;
+        grid.put(restaurantId, lat, lon);
+        if (pending != null && pending != grid) {
+            pending.put(restaurantId, lat, lon);
+        }
+    }
+
+    public void remove(Long restaurantId) {
+        if (restaurantId == null) {
+            return;
+        }
+        Grid pending = building;
+        Grid grid = current;
+        grid.remove(restaurantId);
+        if (pending != null && pending != grid) {
+            pending.remove(restaurantId);
+        }
+    }
+
+    /**
+     * Al massimo limit ristoranti ordinati per distanza; con radiusKm solo quelli entro il raggio.
+     */
+    public List<Hit> nearest(double lat, double lon, int limit, Double radiusKm) {
+        return current.nearest(lat, lon, limit, radiusKm);
+    }
+
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static final class Grid {
+        final double cellDegrees;
+        final int rows;
+        final int cols;
+        final Map<Long, double[]> positions = new ConcurrentHashMap<>();
+        final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+        // Ristoranti modificati durante la ricostruzione: la lettura dal database non li sovrascrive
+        final Set<Long> touched = ConcurrentHashMap.newKeySet();
+
+        Grid(double cellDegrees) {
+            this.cellDegrees = cellDegrees;
+            this.rows = (int) Math.ceil(180 / cellDegrees) + 1;
+            this.cols = (int) Math.ceil(360 / cellDegrees);
+        }
+
+        synchronized void load(Long id, Double lat, Double lon) {
+            if (lat != null && lon != null && !touched.contains(id)) {
+                place(id, lat, lon);
+            }
+        }
+
+        synchronized void put(Long id, double lat, double lon) {
+            touched.add(id);
+            place(id, lat, lon);
+        }
+
+        synchronized void remove(Long id) {
+            touched.add(id);
+            double[] previous = positions.remove(id);
+            if (previous != null) {
+                removeFromCell(id, cellKey(row(previous[0]), col(previous[1])));
+            }
+        }
+
+        private void place(Long id, double lat, double lon) {
+            double[] previous = positions.put(id, new double[]{lat, lon});
+            long key = cellKey(row(lat), col(lon));
+            if (previous != null) {
+                long previousKey = cellKey(row(previous[0]), col(previous[1]));
+                if (previousKey == key) {
+                    return;
+                }
+                removeFromCell(id, previousKey);
+            }
+            cells.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+
+        private void removeFromCell(Long id, long key) {
+            cells.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+
+        List<Hit> nearest(double lat, double lon, int limit, Double radiusKm) {
+            // Max-heap: in cima il più lontano tra i migliori trovati finora
+            PriorityQueue<Hit> best = new PriorityQueue<>(NEAREST_FIRST.reversed());
+            int row0 = row(lat);
+            int col0 = col(lon);
+            int visited = 0;
+
+            for (int ring = 0; ; ring++) {
+                for (long key : ringCells(row0, col0, ring)) {
+                    visited++;
+                    Set<Long> ids = cells.get(key);
+                    if (ids != null) {
+                        for (Long id : ids) {
+                            offer(best, id, lat, lon, limit, radiusKm);
+                        }
+                    }
+                }
+                // Griglia sparsa: oltre questo punto conviene scorrere tutte le posizioni
+                if (visited > positions.size()) {
+                    return scanAll(lat, lon, limit, radiusKm);
+                }
+                // I punti fuori dagli anelli visitati distano almeno reach
+                double maxLat = Math.min(89, Math.abs(lat) + (ring + 1) * cellDegrees);
+                double reach = ring * cellDegrees * MIN_KM_PER_DEGREE * Math.cos(Math.toRadians(maxLat));
+                if (radiusKm != null && reach > radiusKm) {
+                    break;
+                }
+                if (best.size() == limit && best.peek().distanceKm() <= reach) {
+                    break;
+                }
+            }
+            return sorted(best);
+        }
+
+        private List<Hit> scanAll(double lat, double lon, int limit, Double radiusKm) {
+            PriorityQueue<Hit> best = new PriorityQueue<>(NEAREST_FIRST.reversed());
+            for (Long id : positions.keySet()) {
+                offer(best, id, lat, lon, limit, radiusKm);
+            }
+            return sorted(best);
+        }
+
+        private void offer(PriorityQueue<Hit> best, Long id, double lat, double lon, int limit, Double radiusKm) {
+            double[] position = positions.get(id);
+            if (position == null) {
+                return;
+            }
+            double distance = distanceKm(lat, lon, position[0], position[1]);
+            if (radiusKm != null && distance > radiusKm) {
+                return;
+            }
+            Hit hit = new Hit(id, distance);
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (NEAREST_FIRST.compare(hit, best.peek()) < 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+
+        private List<Long> ringCells(int row0, int col0, int ring) {
+            List<Long> keys = new ArrayList<>();
+            for (int row = row0 - ring; row <= row0 + ring; row++) {
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                boolean edgeRow = row == row0 - ring || row == row0 + ring;
+                int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int col = col0 - ring; col <= col0 + ring; col += step) {
+                    keys.add(cellKey(row, Math.floorMod(col, cols)));
+                }
+            }
+            return keys;
+        }
+
+        private int row(double lat) {
+            return (int) Math.floor((lat + 90) / cellDegrees);
+        }
+
+        private int col(double lon) {
+            return Math.floorMod((int) Math.floor((lon + 180) / cellDegrees), cols);
+        }
+
+        private long cellKey(int row, int col) {
+            return (long) row * cols + col;
+        }
+
+        private static List<Hit> sorted(PriorityQueue<Hit> best) {
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(NEAREST_FIRST);
+            return hits;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.tofork.restaurantservice.service;
 
+import com.tofork.restaurantservice.event.TablesChangedEvent;
 import com.tofork.restaurantservice.model.Restaurant;
 import com.tofork.restaurantservice.model.RestaurantTable;
 import com.tofork.restaurantservice.model.TableStatus;
 import com.tofork.restaurantservice.repository.RestaurantRepository;
 import com.tofork.restaurantservice.repository.RestaurantTableRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,16 +17,20 @@ public class RestaurantTableService {
 
     private final RestaurantTableRepository repository;
     private final RestaurantRepository restaurantRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public RestaurantTableService(RestaurantTableRepository repository, RestaurantRepository restaurantRepository) {
+    public RestaurantTableService(RestaurantTableRepository repository, RestaurantRepository restaurantRepository,
+                                  ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.restaurantRepository = restaurantRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<RestaurantTable> getByRestaurantId(Long restaurantId) {
         return repository.findByRestaurantId(restaurantId);
     }
 
+    @Transactional
     public RestaurantTable add(Long restaurantId, RestaurantTable table) {
         Restaurant restaurant = restaurantRepository.findById(restaurantId)
                 .orElseThrow(() -> new RuntimeException("Restaurant not found"));
@@ -32,10 +39,16 @@ public class RestaurantTableService {
         if (table.getStatus() == null) {
             table.setStatus(TableStatus.AVAILABLE);
         }
-        return repository.save(table);
+        RestaurantTable saved = repository.save(table);
+        eventPublisher.publishEvent(new TablesChangedEvent(restaurantId));
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(table -> {
+            repository.delete(table);
+            eventPublisher.publishEvent(new TablesChangedEvent(table.getRestaurant().getId()));
+        });
     }
 }
@@ -0,0 +1,48 @@
+package com.tofork.restaurantservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Singolare e plurale devono finire sullo stesso termine, compresi i plurali in -chi/-ghi
+ * dove l'acca va tolta insieme alla desinenza.
+ */
+class ItalianAnalyzerTest {
+
+    @Test
+    void pluralsInChiAndGhiShareTheSingularStem() {
+        assertEquals(ItalianAnalyzer.stem("fungo"), ItalianAnalyzer.stem("funghi"));
+        assertEquals(ItalianAnalyzer.stem("albergo"), ItalianAnalyzer.stem("alberghi"));
+        assertEquals(ItalianAnalyzer.stem("banco"), ItalianAnalyzer.stem("banchi"));
+        assertEquals(ItalianAnalyzer.stem("pesca"), ItalianAnalyzer.stem("pesche"));
+        assertEquals("fung", ItalianAnalyzer.stem("funghi"));
+        assertEquals("pesc", ItalianAnalyzer.stem("pesche"));
+    }
+
+    @Test
+    void genderAndNumberEndingsAreStripped() {
+        assertEquals("pizz", ItalianAnalyzer.stem("pizza"));
+        assertEquals("pizz", ItalianAnalyzer.stem("pizze"));
+        assertEquals("formagg", ItalianAnalyzer.stem("formaggio"));
+        assertEquals("formagg", ItalianAnalyzer.stem("formaggi"));
+        assertEquals("crud", ItalianAnalyzer.stem("crudo"));
+        assertEquals("crud", ItalianAnalyzer.stem("crudi"));
+    }
+
+    @Test
+    void shortWordsAndOtherEndingsAreLeftAlone() {
+        assertEquals("ragu", ItalianAnalyzer.stem("ragu"));
+        assertEquals("lago", ItalianAnalyzer.stem("lago"));
+        assertEquals("burger", ItalianAnalyzer.stem("burger"));
+    }
+
+    @Test
+    void analyzeFoldsAccentsAndDropsStopWords() {
+        assertEquals(List.of("pizz", "fung", "caff"), ItalianAnalyzer.analyze("Pizza con i Funghi e caffè"));
+        assertEquals(List.of(), ItalianAnalyzer.analyze("  "));
+        assertEquals(List.of(), ItalianAnalyzer.analyze(null));
+    }
+}
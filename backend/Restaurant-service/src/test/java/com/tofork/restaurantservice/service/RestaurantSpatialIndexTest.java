@@ -0,0 +1,123 @@
+package com.tofork.restaurantservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La visita ad anelli si ferma appena il peggiore dei migliori è entro la distanza minima
+ * degli anelli non ancora visti: il risultato deve coincidere con una scansione completa.
+ */
+class RestaurantSpatialIndexTest {
+
+    private static final double CELL = 0.01;
+
+    @Test
+    void nearestMatchesAFullScanOnADenseGrid() {
+        Random random = new Random(42);
+        RestaurantSpatialIndex index = new RestaurantSpatialIndex(null, CELL);
+        Map<Long, double[]> positions = new HashMap<>();
+        // Abbastanza punti da non ricadere nella scansione completa per griglie sparse
+        for (long id = 1; id <= 600; id++) {
+            double lat = 45.3 + random.nextDouble() * 0.4;
+            double lon = 9.0 + random.nextDouble() * 0.4;
+            index.put(id, lat, lon);
+            positions.put(id, new double[]{lat, lon});
+        }
+
+        for (int i = 0; i < 200; i++) {
+            double lat = 45.35 + random.nextDouble() * 0.3;
+            double lon = 9.05 + random.nextDouble() * 0.3;
+            assertEquals(bruteForce(positions, lat, lon, 5, null), ids(index.nearest(lat, lon, 5, null)));
+            assertEquals(bruteForce(positions, lat, lon, 10, 1.5), ids(index.nearest(lat, lon, 10, 1.5)));
+        }
+    }
+
+    @Test
+    void nearestLooksPastAFartherPointInTheSameCell() {
+        RestaurantSpatialIndex index = new RestaurantSpatialIndex(null, CELL);
+        fillBackground(index);
+        // Interrogazione sul bordo est della cella: il vicino nella cella accanto è più vicino
+        index.put(1L, 45.4005, 9.4005);
+        index.put(2L, 45.4005, 9.4102);
+
+        List<RestaurantSpatialIndex.Hit> hits = index.nearest(45.4005, 9.4098, 1, null);
+
+        assertEquals(List.of(2L), ids(hits));
+    }
+
+    @Test
+    void radiusCutsOffEvenWithFreeSlots() {
+        RestaurantSpatialIndex index = new RestaurantSpatialIndex(null, CELL);
+        fillBackground(index);
+        index.put(1L, 45.4005, 9.4005);
+        index.put(2L, 45.4005, 9.4305);
+
+        List<RestaurantSpatialIndex.Hit> hits = index.nearest(45.4005, 9.4005, 10, 1.0);
+
+        assertEquals(List.of(1L), ids(hits));
+        assertTrue(hits.get(0).distanceKm() < 0.001);
+    }
+
+    @Test
+    void putMovesAndRemoveDropsARestaurant() {
+        RestaurantSpatialIndex index = new RestaurantSpatialIndex(null, CELL);
+        fillBackground(index);
+        index.put(1L, 45.4005, 9.4005);
+        index.put(2L, 45.4005, 9.4055);
+
+        index.put(2L, 45.4005, 9.3505);
+        assertEquals(List.of(1L), ids(index.nearest(45.4005, 9.4055, 1, null)));
+        assertEquals(List.of(2L), ids(index.nearest(45.4005, 9.3505, 1, null)));
+
+        index.remove(1L);
+        assertEquals(List.of(), ids(index.nearest(45.4005, 9.4005, 1, 0.5)));
+
+        index.put(1L, null, null);
+        assertEquals(List.of(), ids(index.nearest(45.4005, 9.4005, 1, 0.5)));
+    }
+
+    @Test
+    void nearestWrapsAroundTheAntimeridian() {
+        RestaurantSpatialIndex index = new RestaurantSpatialIndex(null, CELL);
+        index.put(1L, 0.0, 179.995);
+        index.put(2L, 0.0, 170.0);
+
+        List<RestaurantSpatialIndex.Hit> hits = index.nearest(0.0, -179.995, 1, null);
+
+        assertEquals(List.of(1L), ids(hits));
+        assertTrue(hits.get(0).distanceKm() < 2);
+    }
+
+    // Punti lontani dalle interrogazioni, solo per rendere la griglia densa
+    private static void fillBackground(RestaurantSpatialIndex index) {
+        for (long id = 1000; id < 1400; id++) {
+            index.put(id, 40.0 + (id % 20) * 0.001, 10.0 + (id / 20) * 0.001);
+        }
+    }
+
+    private static List<Long> bruteForce(Map<Long, double[]> positions, double lat, double lon,
+                                         int limit, Double radiusKm) {
+        List<RestaurantSpatialIndex.Hit> hits = new ArrayList<>();
+        positions.forEach((id, p) -> {
+            double distance = RestaurantSpatialIndex.distanceKm(lat, lon, p[0], p[1]);
+            if (radiusKm == null || distance <= radiusKm) {
+                hits.add(new RestaurantSpatialIndex.Hit(id, distance));
+            }
+        });
+        hits.sort(Comparator.comparingDouble(RestaurantSpatialIndex.Hit::distanceKm));
+        return ids(hits.subList(0, Math.min(limit, hits.size())));
+    }
+
+    private static List<Long> ids(List<RestaurantSpatialIndex.Hit> hits) {
+        return hits.stream().map(RestaurantSpatialIndex.Hit::restaurantId).toList();
+    }
+}
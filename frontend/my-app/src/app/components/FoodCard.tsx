@@ -2,6 +2,7 @@ import React from 'react';
 import Image from 'next/image';
 import { useCart } from '../context/CartContext';
 import { useAuth } from '../context/AuthContext';
+import { imageVariant } from './imageVariant';
 
 interface FoodCardProps {
   id: number;
@@ -47,7 +48,7 @@ const FoodCard: React.FC<FoodCardProps> = ({ id, imageUrl, title, description, p
 
       <div className="relative flex-shrink-0 w-24 h-24">
         <Image
-          src={imageUrl || "https://placehold.co/100x100?text=No+Image"}
+          src={imageVariant(imageUrl, 'card') || "https://placehold.co/100x100?text=No+Image"}
           alt={title}
           className="rounded-lg h-full w-full object-cover"
           width={98}
@@ -1,5 +1,6 @@
 import Link from "next/link";
 import Image from "next/image";
+import { imageVariant } from "./imageVariant";
 
 interface Restaurant {
     name: string;
@@ -19,7 +20,7 @@ const RestaurantCard = ({ restaurant }: { restaurant: Restaurant }) => (
                 <Image
                     width={100}
                     height={100}
-                    src={restaurant.image}
+                    src={imageVariant(restaurant.image, "card")}
                     className="w-full h-full object-cover"
                     alt={restaurant.name}
                 />
@@ -0,0 +1,10 @@
+// Le immagini caricate su Restaurant-service hanno versioni ridimensionate (?size=thumbnail|card|full):
+// le card mostrano quella piccola invece dell'originale. Gli URL esterni restano invariati.
+const IMAGES_PATH = '/api/restaurants/images/';
+
+export type ImageSize = 'thumbnail' | 'card' | 'full';
+
+export function imageVariant(url: string | undefined, size: ImageSize): string | undefined {
+    if (!url || !url.includes(IMAGES_PATH) || url.includes('?')) return url;
+    return `${url}?size=${size}`;
+}